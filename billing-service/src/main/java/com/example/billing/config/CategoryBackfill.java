@@ -0,0 +1,40 @@
+package com.example.billing.config;
+
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.service.CategoryDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns dictionary category ids to sales recorded before Sales.categoryId existed,
+ * so the reports that group on the id see every row. A no-op once all rows have one.
+ */
+@Component
+public class CategoryBackfill implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryBackfill.class);
+
+    private final SalesRepository salesRepository;
+    private final CategoryDictionary categoryDictionary;
+
+    public CategoryBackfill(SalesRepository salesRepository, CategoryDictionary categoryDictionary) {
+        this.salesRepository = salesRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @Override
+    public void run(String... args) {
+        int updated = 0;
+        for (String category : salesRepository.findCategoriesWithoutId()) {
+            Integer categoryId = categoryDictionary.idFor(category);
+            if (categoryId != null) {
+                updated += salesRepository.assignCategoryId(category, categoryId);
+            }
+        }
+        if (updated > 0) {
+            logger.info("Backfilled category_id for {} sales", updated);
+        }
+    }
+}
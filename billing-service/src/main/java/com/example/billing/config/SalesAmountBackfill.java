@@ -0,0 +1,33 @@
+package com.example.billing.config;
+
+import com.example.billing.repository.SalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills Sales.totalAmountPaise for sales recorded before the column existed, so the
+ * SUM-based reports see every row. A no-op once all rows have it. This is the only
+ * backfill: the Flyway migration adds the column, and the Hibernate-managed default
+ * profile has no migrations at all.
+ */
+@Component
+public class SalesAmountBackfill implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAmountBackfill.class);
+
+    private final SalesRepository salesRepository;
+
+    public SalesAmountBackfill(SalesRepository salesRepository) {
+        this.salesRepository = salesRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        int updated = salesRepository.backfillTotalAmountPaise();
+        if (updated > 0) {
+            logger.info("Backfilled total_amount_paise for {} sales", updated);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.billing.config;
+
+import com.example.billing.service.SalesQuantiles;
+import com.example.billing.util.DDSketch;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Actuator view of the sales percentiles: {@code /actuator/salesquantiles?window=hour|day}
+ * for p50/p90/p99 of every metric, and {@code /actuator/salesquantiles/{metric}} for the
+ * raw sketches, so percentiles across instances can be computed by merging them.
+ */
+@Component
+@Endpoint(id = "salesquantiles")
+public class SalesQuantilesEndpoint {
+
+    private final SalesQuantiles salesQuantiles;
+
+    public SalesQuantilesEndpoint(SalesQuantiles salesQuantiles) {
+        this.salesQuantiles = salesQuantiles;
+    }
+
+    @ReadOperation
+    public Map<String, List<SalesQuantiles.Percentiles>> percentiles(@Nullable String window) {
+        SalesQuantiles.Window quantileWindow = SalesQuantiles.Window.parse(window);
+        Map<String, List<SalesQuantiles.Percentiles>> result = new LinkedHashMap<>();
+        for (SalesQuantiles.Metric metric : SalesQuantiles.Metric.values()) {
+            result.put(metric.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                    salesQuantiles.getPercentiles(metric, quantileWindow));
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, DDSketch.State> sketches(@Selector String metric, @Nullable String window) {
+        return salesQuantiles.exportSketches(SalesQuantiles.Metric.parse(metric), SalesQuantiles.Window.parse(window));
+    }
+}
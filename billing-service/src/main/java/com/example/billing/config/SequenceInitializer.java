@@ -0,0 +1,59 @@
+package com.example.billing.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Moves the id sequences past the highest existing id. The billing database is a file
+ * that outlives restarts, and rows written while these tables used IDENTITY ids would
+ * otherwise collide with the freshly created sequences. A sequence that is already
+ * past them is left alone. Only used while Hibernate owns the schema; with Flyway
+ * (the persistent profile) migration V7 makes the same move once.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.flyway.enabled", havingValue = "false")
+public class SequenceInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceInitializer.class);
+    // must match allocationSize of the @SequenceGenerator on the entities
+    private static final int ALLOCATION_SIZE = 50;
+    private static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            "sales_seq", "sales",
+            "products_seq", "products"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        SEQUENCE_TABLES.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (maxId == null || maxId == 0) {
+                return;
+            }
+            Long nextValue = jdbcTemplate.queryForObject("SELECT base_value FROM information_schema.sequences "
+                    + "WHERE sequence_schema = SCHEMA() AND sequence_name = ?", Long.class, sequence.toUpperCase(Locale.ROOT));
+            // the pooled optimizer hands out (value - ALLOCATION_SIZE, value], so start one block above
+            long restartWith = maxId + ALLOCATION_SIZE + 1;
+            if (nextValue != null && nextValue >= restartWith) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+            logger.info("Sequence {} restarted at {} (max {} id {})", sequence, restartWith, table, maxId);
+        });
+    }
+}
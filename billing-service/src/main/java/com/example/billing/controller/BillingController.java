@@ -1,16 +1,36 @@
 package com.example.billing.controller;
 
+import com.example.billing.feign.InventoryItemDto;
 import com.example.billing.model.Sales;
+import com.example.billing.service.BillableItemsFeed;
 import com.example.billing.service.BillingService;
+import com.example.billing.service.IdempotencyService;
+import com.example.billing.service.LiveSalesFeed;
+import com.example.billing.service.LiveSalesMetrics;
+import com.example.billing.service.ReportJobService;
+import com.example.billing.service.SalesArchive;
+import com.example.billing.service.SalesQuantiles;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @Controller
 public class BillingController {
@@ -18,6 +38,27 @@ public class BillingController {
     @Autowired
     private BillingService billingService;
 
+    @Autowired
+    private BillableItemsFeed billableItemsFeed;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private LiveSalesMetrics liveSalesMetrics;
+
+    @Autowired
+    private LiveSalesFeed liveSalesFeed;
+
+    @Autowired
+    private SalesQuantiles salesQuantiles;
+
+    @Autowired
+    private SalesArchive salesArchive;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
     @GetMapping("/")
     public String home() {
         return "index"; // Thymeleaf template for menu
@@ -37,13 +78,13 @@ public class BillingController {
     public String getItems(Model model) {
         try {
             // Get real-time items that are available for billing (synchronized between services)
-            List<Map<String, Object>> items = billingService.getAvailableItemsForBilling();
+            List<InventoryItemDto> items = billingService.getAvailableItemsForBilling();
             model.addAttribute("items", items);
             model.addAttribute("message", "Showing items available for billing (synchronized between inventory and products)");
             model.addAttribute("messageType", "info");
         } catch (Exception e) {
             // Fallback to all inventory items if the enhanced method fails
-            List<Map<String, Object>> items = billingService.getAllItems();
+            List<InventoryItemDto> items = billingService.getAllItems();
             model.addAttribute("items", items);
             model.addAttribute("message", "Note: Showing fallback data. Some items may not be synchronized.");
             model.addAttribute("messageType", "warning");
@@ -72,7 +113,7 @@ public class BillingController {
     @GetMapping("/edit-item/{id}")
     public String editItemForm(@PathVariable Long id, Model model) {
         try {
-            Map<String, Object> item = billingService.getItemById(id);
+            InventoryItemDto item = billingService.getItemById(id);
             model.addAttribute("item", item);
             return "edit-item";
         } catch (Exception e) {
@@ -112,8 +153,10 @@ public class BillingController {
             @RequestParam(value = "quick", required = false) String quick,
             Model model) {
         
-        List<Map<String, Object>> items = billingService.getAllItems();
+        List<InventoryItemDto> items = billingService.getAllItems();
         model.addAttribute("items", items);
+        // Key sent back with the form so a retried submit does not bill twice
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         
         // Set page attributes based on parameters
         if ("true".equals(bulk)) {
@@ -133,11 +176,21 @@ public class BillingController {
     }
 
     @PostMapping("/generate-bill")
-    public String generateBill(@RequestParam Long itemId, @RequestParam int quantity, Model model) {
+    public String generateBill(@RequestParam Long itemId, @RequestParam int quantity,
+                               @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
+                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
+                               Model model, HttpServletResponse response) {
+        String key = idempotencyHeader != null ? idempotencyHeader : idempotencyKey;
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         try {
-            Sales sale = billingService.generateBill(itemId, quantity);
+            idempotencyService.validateKey(key);
+            Sales sale = idempotencyService.execute(key, itemId + ":" + quantity,
+                    () -> billingService.generateBill(itemId, quantity, key));
             model.addAttribute("sale", sale);
             model.addAttribute("success", "Bill generated successfully!");
+        } catch (ResponseStatusException e) {
+            response.setStatus(e.getStatusCode().value());
+            model.addAttribute("error", e.getReason());
         } catch (RuntimeException e) {
             model.addAttribute("error", e.getMessage());
         }
@@ -148,10 +201,24 @@ public class BillingController {
     public String getSalesReport(
             @RequestParam(value = "period", required = false) String period,
             @RequestParam(value = "dashboard", required = false) String dashboard,
-            Model model) {
+            Model model, HttpServletResponse response) {
         
-        Map<String, Double> report = billingService.getSalesReportByCategory();
+        // Served from the report cache until new sales land; never waits for a recompute
+        ReportJobService.PageReport<Map<String, BigDecimal>> page = reportJobService.getCategoryReport("all");
+        Map<String, BigDecimal> report = page.result() == null ? Map.of() : page.result();
+        if (page.isPending()) {
+            // the page polls the job and reloads once the current report is ready
+            model.addAttribute("reportJobId", page.pendingJobId());
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        }
         model.addAttribute("report", report);
+        model.addAttribute("reportTotal", report.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        model.addAttribute("topCategory", report.entrySet().stream()
+                .max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse("N/A"));
+        // Last 24 hours, from the incremental sketches
+        model.addAttribute("billPercentiles", salesQuantiles.getBillPercentiles(SalesQuantiles.Window.DAY));
+        model.addAttribute("latencyPercentiles",
+                salesQuantiles.getPercentiles(SalesQuantiles.Metric.CHECKOUT_LATENCY, SalesQuantiles.Window.DAY));
         
         // Add period-specific data
         if ("week".equals(period)) {
@@ -178,13 +245,27 @@ public class BillingController {
             @RequestParam(value = "recent", required = false) String recent,
             Model model) {
         
-        List<Sales> sales = billingService.getAllSales();
-        
-        // Filter sales based on parameters
         if ("true".equals(today)) {
+            // Totals come from the live metrics; only today's rows are loaded for the table
+            List<Sales> sales = billingService.getTodaysSales();
+            LiveSalesMetrics.WindowStats todayStats = liveSalesMetrics.isReady()
+                    ? liveSalesMetrics.today() : null;
             model.addAttribute("pageTitle", "Today's Sales");
             model.addAttribute("showDateFilter", true);
-        } else if ("true".equals(search)) {
+            model.addAttribute("showLiveTicker", true);
+            model.addAttribute("sales", sales);
+            model.addAttribute("totalTransactions", todayStats != null ? todayStats.bills() : sales.size());
+            model.addAttribute("totalRevenue", todayStats != null ? todayStats.revenue() : billingService.sumRevenue(sales));
+            model.addAttribute("totalItemsSold", todayStats != null ? todayStats.units()
+                    : sales.stream().mapToInt(Sales::getQuantitySold).sum());
+            return "sales";
+        }
+        
+        // Live table and archived months together
+        List<Sales> sales = "true".equals(recent) ? billingService.getRecentSales(10) : billingService.getAllSales();
+        
+        // Filter sales based on parameters
+        if ("true".equals(search)) {
             model.addAttribute("pageTitle", "Search Bills & Sales");
             model.addAttribute("showSearchForm", true);
         } else if ("true".equals(export)) {
@@ -192,19 +273,16 @@ public class BillingController {
             model.addAttribute("showExportOptions", true);
         } else if ("true".equals(recent)) {
             model.addAttribute("pageTitle", "Recent Transactions");
-            // Limit to last 10 transactions
-            if (sales.size() > 10) {
-                sales = sales.subList(0, 10);
-            }
         } else {
             model.addAttribute("pageTitle", "All Sales");
         }
         
         // Calculate statistics
-        double totalRevenue = sales.stream().mapToDouble(Sales::getTotalAmount).sum();
+        BigDecimal totalRevenue = billingService.sumRevenue(sales);
         int totalItemsSold = sales.stream().mapToInt(Sales::getQuantitySold).sum();
         
         model.addAttribute("sales", sales);
+        model.addAttribute("totalTransactions", sales.size());
         model.addAttribute("totalRevenue", totalRevenue);
         model.addAttribute("totalItemsSold", totalItemsSold);
         
@@ -233,7 +311,7 @@ public class BillingController {
             
             if (cancelled) {
                 response.put("status", "success");
-                response.put("message", "Sale cancelled and stock restored successfully");
+                response.put("message", "Sale cancelled; stock will be restored shortly");
                 return ResponseEntity.ok(response);
             } else {
                 response.put("status", "error");
@@ -248,6 +326,151 @@ public class BillingController {
         }
     }
 
+    @PostMapping("/api/sales/cancel")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> cancelSales(@RequestBody List<Long> saleIds) {
+        try {
+            Map<String, Object> response = new HashMap<>(billingService.cancelSales(saleIds));
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    @GetMapping("/api/sales/metrics")
+    @ResponseBody
+    public ResponseEntity<Object> getLiveSalesMetrics(@RequestParam(required = false) Integer minutes,
+                                                      @RequestParam(required = false) Integer hours) {
+        if (minutes != null) {
+            return ResponseEntity.ok(liveSalesMetrics.lastMinutes(minutes));
+        }
+        if (hours != null) {
+            return ResponseEntity.ok(liveSalesMetrics.lastHours(hours));
+        }
+        return ResponseEntity.ok(liveSalesFeed.currentTotals());
+    }
+
+    @GetMapping(value = "/api/sales/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamLiveSales() {
+        return liveSalesFeed.subscribe();
+    }
+
+    @GetMapping("/api/sales/analytics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getSalesAnalytics(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer minQuantity,
+            @RequestParam(required = false) Integer maxQuantity) {
+        return ResponseEntity.ok(billingService.getSalesAnalytics(category, from, to, minQuantity, maxQuantity));
+    }
+
+    @GetMapping("/api/sales/top-sellers")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getTopSellers(@RequestParam(defaultValue = "today") String window,
+                                                             @RequestParam(defaultValue = "10") int limit,
+                                                             @RequestParam(defaultValue = "false") boolean exact) {
+        try {
+            return ResponseEntity.ok(billingService.getTopSellers(window, limit, exact));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/api/sales/archive")
+    @ResponseBody
+    public ResponseEntity<List<SalesArchive.SegmentInfo>> getArchivedMonths() {
+        return ResponseEntity.ok(salesArchive.listSegments());
+    }
+
+    @GetMapping("/api/sales/archive/{month}")
+    @ResponseBody
+    public ResponseEntity<Object> getArchivedSales(@PathVariable String month) {
+        Map<String, Object> response = new HashMap<>();
+        YearMonth yearMonth;
+        try {
+            yearMonth = YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            response.put("status", "error");
+            response.put("message", "Invalid month: " + month + " (expected yyyy-MM)");
+            return ResponseEntity.badRequest().body(response);
+        }
+        return salesArchive.readMonth(yearMonth)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> {
+                    response.put("status", "error");
+                    response.put("message", "No archived sales for " + yearMonth);
+                    return ResponseEntity.status(404).body(response);
+                });
+    }
+
+    @PostMapping("/api/reports")
+    @ResponseBody
+    public ResponseEntity<Object> submitReport(@RequestParam(defaultValue = "category") String type,
+                                               @RequestParam(defaultValue = "all") String period,
+                                               @RequestParam(defaultValue = "batch") String priority) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ReportJobService.JobStatus job = reportJobService.submit(
+                    ReportJobService.Type.parse(type), period, ReportJobService.Priority.parse(priority));
+            return job.status() == ReportJobService.Status.DONE
+                    ? ResponseEntity.ok(job)
+                    : ResponseEntity.accepted().body(job);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (RejectedExecutionException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(503).body(response);
+        }
+    }
+
+    @GetMapping("/api/reports/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Object> getReportJob(@PathVariable String jobId) {
+        return reportJobService.getStatus(jobId)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElseGet(() -> reportJobNotFound(jobId));
+    }
+
+    @GetMapping("/api/reports/{jobId}/result")
+    @ResponseBody
+    public ResponseEntity<Object> getReportResult(@PathVariable String jobId) {
+        Optional<ReportJobService.JobStatus> job = reportJobService.getStatus(jobId);
+        if (job.isEmpty()) {
+            return reportJobNotFound(jobId);
+        }
+        try {
+            return reportJobService.getResult(jobId)
+                    .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                    // still queued or running: the status tells the client to poll again
+                    .orElseGet(() -> ResponseEntity.accepted().body(job.get()));
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Report failed: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    private ResponseEntity<Object> reportJobNotFound(String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", "Unknown or expired report job: " + jobId);
+        return ResponseEntity.status(404).body(response);
+    }
+
     @PostMapping("/api/items/{itemId}/stock/restore")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> restoreStock(@PathVariable Long itemId, 
@@ -297,9 +520,9 @@ public class BillingController {
      */
     @GetMapping("/api/items/available-for-billing")
     @ResponseBody
-    public ResponseEntity<List<Map<String, Object>>> getAvailableItemsForBilling() {
+    public ResponseEntity<List<InventoryItemDto>> getAvailableItemsForBilling() {
         try {
-            List<Map<String, Object>> availableItems = billingService.getAvailableItemsForBilling();
+            List<InventoryItemDto> availableItems = billingService.getAvailableItemsForBilling();
             return ResponseEntity.ok(availableItems);
         } catch (Exception e) {
             return ResponseEntity.status(500).body(null);
@@ -345,18 +568,27 @@ public class BillingController {
      */
     @GetMapping("/api/items/realtime")
     @ResponseBody
-    public ResponseEntity<List<Map<String, Object>>> getRealtimeItems() {
+    public ResponseEntity<List<InventoryItemDto>> getRealtimeItems() {
         try {
-            List<Map<String, Object>> items = billingService.getAvailableItemsForBilling();
+            List<InventoryItemDto> items = billingService.getAvailableItemsForBilling();
             return ResponseEntity.ok(items);
         } catch (Exception e) {
             // Fallback to inventory service directly
             try {
-                List<Map<String, Object>> fallbackItems = billingService.getAllItems();
+                List<InventoryItemDto> fallbackItems = billingService.getAllItems();
                 return ResponseEntity.ok(fallbackItems);
             } catch (Exception fallbackException) {
                 return ResponseEntity.status(500).body(null);
             }
         }
     }
-}
+
+    /**
+     * Server-Sent Events stream of billable items: a snapshot on connect, then deltas
+     */
+    @GetMapping(value = "/api/items/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamItems() {
+        return billableItemsFeed.subscribe();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.example.billing.feign;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feign configuration for the inventory and product clients. Responses can be
+ * decoded from JSON or Smile; Smile is only requested when
+ * {@code billing.feign.wire-format=smile}.
+ */
+public class FeignWireFormatConfig {
+
+    private static final String SMILE_ACCEPT = "application/x-jackson-smile, application/json;q=0.9";
+
+    @Bean
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        MappingJackson2SmileHttpMessageConverter smileConverter = new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build());
+
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        converters.add(smileConverter);
+        converters.addAll(messageConverters.getObject().getConverters());
+        HttpMessageConverters withSmile = new HttpMessageConverters(false, converters);
+
+        return new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(() -> withSmile, customizers)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "billing.feign.wire-format", havingValue = "smile")
+    public RequestInterceptor smileAcceptInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT, SMILE_ACCEPT);
+    }
+}
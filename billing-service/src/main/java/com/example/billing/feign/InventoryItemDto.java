@@ -0,0 +1,40 @@
+package com.example.billing.feign;
+
+/**
+ * Item as returned by inventory-service. Decoded directly by Jackson so callers
+ * work with primitive fields instead of casting values out of a Map.
+ */
+public class InventoryItemDto {
+    private Long id;
+    private String name;
+    private String category;
+    private double price;
+    private int quantity;
+
+    // Constructors
+    public InventoryItemDto() {}
+
+    public InventoryItemDto(Long id, String name, String category, double price, int quantity) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+}
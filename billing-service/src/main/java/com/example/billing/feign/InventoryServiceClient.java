@@ -1,35 +1,52 @@
 package com.example.billing.feign;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
 
-@FeignClient(name = "inventory-service", fallback = InventoryServiceFallback.class)
+@FeignClient(name = "inventory-service", fallbackFactory = InventoryServiceFallbackFactory.class,
+        configuration = FeignWireFormatConfig.class)
 public interface InventoryServiceClient {
 
     @GetMapping("/api/items")
-    List<Map<String, Object>> getAllItems();
+    List<InventoryItemDto> getAllItems();
 
     @GetMapping("/api/items/{id}")
-    Map<String, Object> getItemById(@PathVariable("id") Long id);
+    InventoryItemDto getItemById(@PathVariable("id") Long id);
 
     @PostMapping("/api/items")
-    Map<String, Object> addItem(@RequestBody Map<String, Object> item);
+    InventoryItemDto addItem(@RequestBody InventoryItemDto item);
 
     @PutMapping("/api/items/{id}/stock")
-    Map<String, Object> updateStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+    InventoryItemDto updateStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
 
     @GetMapping("/api/items/{id}/stock/check")
     Map<String, Object> checkStock(@PathVariable("id") Long id, @RequestParam("requiredQuantity") int requiredQuantity);
 
     @PutMapping("/api/items/{id}/stock/add")
-    Map<String, Object> addStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+    InventoryItemDto addStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+
+    // Retries with the same key are applied once by the inventory service
+    @PutMapping("/api/items/{id}/stock/add")
+    InventoryItemDto addStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity,
+                              @RequestHeader("Idempotency-Key") String idempotencyKey);
+
+    @PostMapping("/api/items/{id}/reservations")
+    Map<String, Object> reserveStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity,
+                                     @RequestParam("ttlSeconds") long ttlSeconds);
+
+    @PostMapping("/api/items/reservations/{reservationId}/confirm")
+    InventoryItemDto confirmReservation(@PathVariable("reservationId") String reservationId);
+
+    @DeleteMapping("/api/items/reservations/{reservationId}")
+    void releaseReservation(@PathVariable("reservationId") String reservationId);
 
     @PutMapping("/api/items/{id}")
-    Map<String, Object> updateItem(@PathVariable("id") Long id, @RequestBody Map<String, Object> item);
+    InventoryItemDto updateItem(@PathVariable("id") Long id, @RequestBody InventoryItemDto item);
 
     @DeleteMapping("/api/items/{id}")
-    void deleteItem(@PathVariable("id") Long id);
-}
\ No newline at end of file
+    ResponseEntity<Void> deleteItem(@PathVariable("id") Long id);
+}
@@ -1,44 +1,68 @@
 package com.example.billing.feign;
 
-import org.springframework.stereotype.Component;
+import feign.FeignException;
+import org.springframework.http.ResponseEntity;
 
 import java.util.List;
 import java.util.Map;
 
-@Component
 public class InventoryServiceFallback implements InventoryServiceClient {
 
+    // Served whenever the service is down; a single instance so callers can recognise it
+    private static final List<InventoryItemDto> SAMPLE_ITEMS = List.of(
+        new InventoryItemDto(1L, "Laptop", "Electronics", 50000.0, 10),
+        new InventoryItemDto(2L, "Smartphone", "Electronics", 25000.0, 15),
+        new InventoryItemDto(3L, "Headphones", "Electronics", 2500.0, 25),
+        new InventoryItemDto(4L, "Wireless Mouse", "Electronics", 1500.0, 30),
+        new InventoryItemDto(5L, "USB Cable", "Electronics", 500.0, 50)
+    );
+
+    // Why the call failed, as passed in by the fallback factory
+    private final Throwable cause;
+
+    public InventoryServiceFallback(Throwable cause) {
+        this.cause = cause;
+    }
+
     @Override
-    public List<Map<String, Object>> getAllItems() {
+    public List<InventoryItemDto> getAllItems() {
         return getSampleItems();
     }
 
     @Override
-    public Map<String, Object> getItemById(Long id) {
+    public InventoryItemDto getItemById(Long id) {
+        if (cause instanceof FeignException.NotFound notFound) {
+            // the service answered that the item does not exist; not an outage
+            throw notFound;
+        }
         return getSampleItems().stream()
-                .filter(item -> item.get("id").equals(id.intValue()))
+                .filter(item -> item.getId().equals(id))
                 .findFirst()
                 .orElse(null);
     }
 
     @Override
-    public Map<String, Object> addItem(Map<String, Object> item) {
-        return Map.of("message", "Inventory service unavailable, item not added");
+    public InventoryItemDto addItem(InventoryItemDto item) {
+        // Inventory service unavailable, item not added
+        return null;
     }
 
     @Override
-    public Map<String, Object> updateStock(Long id, int quantity) {
-        return Map.of("message", "Inventory service unavailable, stock not updated");
+    public InventoryItemDto updateStock(Long id, int quantity) {
+        // Inventory service unavailable, stock not updated
+        return null;
     }
 
     @Override
-    public Map<String, Object> updateItem(Long id, Map<String, Object> item) {
-        return Map.of("message", "Inventory service unavailable, item not updated");
+    public InventoryItemDto updateItem(Long id, InventoryItemDto item) {
+        // Inventory service unavailable, item not updated
+        return null;
     }
 
     @Override
-    public void deleteItem(Long id) {
-        // Do nothing - service unavailable
+    public ResponseEntity<Void> deleteItem(Long id) {
+        // Inventory service unavailable, item not deleted
+        return null;
     }
 
     @Override
@@ -55,50 +79,47 @@ public class InventoryServiceFallback implements InventoryServiceClient {
     }
 
     @Override
-    public Map<String, Object> addStock(Long id, int quantity) {
+    public InventoryItemDto addStock(Long id, int quantity) {
+        // Inventory service unavailable, stock not added
+        return null;
+    }
+
+    @Override
+    public InventoryItemDto addStock(Long id, int quantity, String idempotencyKey) {
+        // Inventory service unavailable, stock not added
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> reserveStock(Long id, int quantity, long ttlSeconds) {
         return Map.of(
-            "message", "Inventory service unavailable, stock not added",
-            "status", "SERVICE_UNAVAILABLE"
+            "itemId", id,
+            "quantity", quantity,
+            "status", "SERVICE_UNAVAILABLE",
+            "message", "Inventory service unavailable, stock not reserved"
         );
     }
 
-    private List<Map<String, Object>> getSampleItems() {
-        return List.of(
-            Map.of(
-                "id", 1,
-                "name", "Laptop",
-                "category", "Electronics",
-                "price", 50000.0,
-                "quantity", 10
-            ),
-            Map.of(
-                "id", 2,
-                "name", "Smartphone",
-                "category", "Electronics",
-                "price", 25000.0,
-                "quantity", 15
-            ),
-            Map.of(
-                "id", 3,
-                "name", "Headphones",
-                "category", "Electronics",
-                "price", 2500.0,
-                "quantity", 25
-            ),
-            Map.of(
-                "id", 4,
-                "name", "Wireless Mouse",
-                "category", "Electronics",
-                "price", 1500.0,
-                "quantity", 30
-            ),
-            Map.of(
-                "id", 5,
-                "name", "USB Cable",
-                "category", "Electronics",
-                "price", 500.0,
-                "quantity", 50
-            )
-        );
+    @Override
+    public InventoryItemDto confirmReservation(String reservationId) {
+        // Inventory service unavailable, reservation not confirmed
+        return null;
+    }
+
+    @Override
+    public void releaseReservation(String reservationId) {
+        // Do nothing - the hold expires on its own
+    }
+
+    private List<InventoryItemDto> getSampleItems() {
+        return SAMPLE_ITEMS;
+    }
+
+    /**
+     * True if {@code data} is this fallback's stub catalog (or one of its items), i.e. the
+     * service was unavailable and nothing real was read.
+     */
+    public static boolean isSampleData(Object data) {
+        return data != null && (data == SAMPLE_ITEMS || SAMPLE_ITEMS.stream().anyMatch(sample -> sample == data));
     }
-}
\ No newline at end of file
+}
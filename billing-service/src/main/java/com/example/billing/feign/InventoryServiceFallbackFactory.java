@@ -0,0 +1,17 @@
+package com.example.billing.feign;
+
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link InventoryServiceFallback} for a failed call, so the fallback can tell a
+ * 404 from the inventory service apart from the service being unavailable.
+ */
+@Component
+public class InventoryServiceFallbackFactory implements FallbackFactory<InventoryServiceClient> {
+
+    @Override
+    public InventoryServiceClient create(Throwable cause) {
+        return new InventoryServiceFallback(cause);
+    }
+}
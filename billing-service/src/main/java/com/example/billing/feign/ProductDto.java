@@ -0,0 +1,56 @@
+package com.example.billing.feign;
+
+/**
+ * Product as returned by product-service. Fields missing from a projected
+ * response (e.g. {@code ?fields=id,stockQuantity}) keep their defaults.
+ */
+public class ProductDto {
+    private Long id;
+    private String name;
+    private String category;
+    private String description;
+    private double price;
+    private int stockQuantity;
+    private String sku;
+    private boolean isActive = true;
+
+    // Constructors
+    public ProductDto() {}
+
+    public ProductDto(Long id, String name, String category, String description,
+                      double price, int stockQuantity, String sku, boolean isActive) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.description = description;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.sku = sku;
+        this.isActive = isActive;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public double getPrice() { return price; }
+    public void setPrice(double price) { this.price = price; }
+
+    public int getStockQuantity() { return stockQuantity; }
+    public void setStockQuantity(int stockQuantity) { this.stockQuantity = stockQuantity; }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
+    public boolean getIsActive() { return isActive; }
+    public void setIsActive(boolean isActive) { this.isActive = isActive; }
+}
@@ -6,42 +6,54 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
 
-@FeignClient(name = "product-service", fallback = ProductServiceFallback.class)
+@FeignClient(name = "product-service", fallbackFactory = ProductServiceFallbackFactory.class,
+        configuration = FeignWireFormatConfig.class)
 public interface ProductServiceClient {
 
     @GetMapping("/api/products")
-    List<Map<String, Object>> getAllProducts();
+    List<ProductDto> getAllProducts();
+
+    @GetMapping("/api/products")
+    List<ProductDto> getProductFields(@RequestParam("fields") String fields);
 
     @GetMapping("/api/products/{id}")
-    Map<String, Object> getProductById(@PathVariable("id") Long id);
+    ProductDto getProductById(@PathVariable("id") Long id);
 
     @GetMapping("/api/products/category/{category}")
-    List<Map<String, Object>> getProductsByCategory(@PathVariable("category") String category);
+    List<ProductDto> getProductsByCategory(@PathVariable("category") String category);
 
     @GetMapping("/api/products/categories")
     List<String> getAllCategories();
 
     @GetMapping("/api/products/search")
-    List<Map<String, Object>> searchProducts(@RequestParam("name") String name);
+    List<ProductDto> searchProducts(@RequestParam("name") String name);
 
     @GetMapping("/api/products/low-stock")
-    List<Map<String, Object>> getLowStockProducts(@RequestParam(value = "threshold", defaultValue = "10") int threshold);
+    List<ProductDto> getLowStockProducts(@RequestParam(value = "threshold", defaultValue = "10") int threshold);
 
     @PostMapping("/api/products")
-    Map<String, Object> createProduct(@RequestBody Map<String, Object> product);
+    ProductDto createProduct(@RequestBody Map<String, Object> product);
 
     @PutMapping("/api/products/{id}")
-    Map<String, Object> updateProduct(@PathVariable("id") Long id, @RequestBody Map<String, Object> product);
+    ProductDto updateProduct(@PathVariable("id") Long id, @RequestBody Map<String, Object> product);
 
     @PutMapping("/api/products/{id}/stock")
-    Map<String, Object> updateStock(@PathVariable("id") Long id, @RequestParam("stock") int stock);
+    ProductDto updateStock(@PathVariable("id") Long id, @RequestParam("stock") int stock);
 
     @PutMapping("/api/products/{id}/reduce-stock")
-    Map<String, Object> reduceStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+    ProductDto reduceStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+
+    @PutMapping("/api/products/{id}/increase-stock")
+    ProductDto increaseStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity);
+
+    // Retries with the same key are applied once by the product service
+    @PutMapping("/api/products/{id}/increase-stock")
+    ProductDto increaseStock(@PathVariable("id") Long id, @RequestParam("quantity") int quantity,
+                             @RequestHeader("Idempotency-Key") String idempotencyKey);
 
     @DeleteMapping("/api/products/{id}")
     void deleteProduct(@PathVariable("id") Long id);
 
     @GetMapping("/api/products/stats")
     Map<String, Object> getProductStats();
-}
\ No newline at end of file
+}
@@ -1,32 +1,59 @@
 package com.example.billing.feign;
 
-import org.springframework.stereotype.Component;
+import feign.FeignException;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
-@Component
 public class ProductServiceFallback implements ProductServiceClient {
 
+    // Served whenever the service is down; a single instance so callers can recognise it
+    private static final List<ProductDto> SAMPLE_PRODUCTS = List.of(
+        new ProductDto(1L, "Gaming Laptop", "Electronics", "High-performance gaming laptop",
+            75000.0, 5, "ELEGAL001", true),
+        new ProductDto(2L, "Wireless Earbuds", "Electronics", "Premium wireless earbuds",
+            8000.0, 20, "ELEWIR002", true),
+        new ProductDto(3L, "Cotton T-Shirt", "Clothing", "Comfortable cotton t-shirt",
+            800.0, 50, "CLCOTT003", true),
+        new ProductDto(4L, "Programming Book", "Books", "Learn Java programming",
+            1200.0, 15, "BOPRO004", true),
+        new ProductDto(5L, "Plant Pot", "Home & Garden", "Ceramic plant pot",
+            300.0, 8, "HOPLA005", true)
+    );
+
+    // Why the call failed, as passed in by the fallback factory
+    private final Throwable cause;
+
+    public ProductServiceFallback(Throwable cause) {
+        this.cause = cause;
+    }
+
+    @Override
+    public List<ProductDto> getAllProducts() {
+        return getSampleProducts();
+    }
+
     @Override
-    public List<Map<String, Object>> getAllProducts() {
+    public List<ProductDto> getProductFields(String fields) {
         return getSampleProducts();
     }
 
     @Override
-    public Map<String, Object> getProductById(Long id) {
+    public ProductDto getProductById(Long id) {
+        if (cause instanceof FeignException.NotFound notFound) {
+            // the service answered that the product does not exist; not an outage
+            throw notFound;
+        }
         return getSampleProducts().stream()
-                .filter(product -> product.get("id").equals(id.intValue()))
+                .filter(product -> product.getId().equals(id))
                 .findFirst()
                 .orElse(null);
     }
 
     @Override
-    public List<Map<String, Object>> getProductsByCategory(String category) {
+    public List<ProductDto> getProductsByCategory(String category) {
         return getSampleProducts().stream()
-                .filter(product -> product.get("category").equals(category))
+                .filter(product -> product.getCategory().equals(category))
                 .toList();
     }
 
@@ -36,37 +63,53 @@ public class ProductServiceFallback implements ProductServiceClient {
     }
 
     @Override
-    public List<Map<String, Object>> searchProducts(String name) {
+    public List<ProductDto> searchProducts(String name) {
         return getSampleProducts().stream()
-                .filter(product -> ((String) product.get("name")).toLowerCase().contains(name.toLowerCase()))
+                .filter(product -> product.getName().toLowerCase().contains(name.toLowerCase()))
                 .toList();
     }
 
     @Override
-    public List<Map<String, Object>> getLowStockProducts(int threshold) {
+    public List<ProductDto> getLowStockProducts(int threshold) {
         return getSampleProducts().stream()
-                .filter(product -> (Integer) product.get("stockQuantity") < threshold)
+                .filter(product -> product.getStockQuantity() < threshold)
                 .toList();
     }
 
     @Override
-    public Map<String, Object> createProduct(Map<String, Object> product) {
-        return Map.of("message", "Product service unavailable, product not created");
+    public ProductDto createProduct(Map<String, Object> product) {
+        // Product service unavailable, product not created
+        return null;
     }
 
     @Override
-    public Map<String, Object> updateProduct(Long id, Map<String, Object> product) {
-        return Map.of("message", "Product service unavailable, product not updated");
+    public ProductDto updateProduct(Long id, Map<String, Object> product) {
+        // Product service unavailable, product not updated
+        return null;
     }
 
     @Override
-    public Map<String, Object> updateStock(Long id, int stock) {
-        return Map.of("message", "Product service unavailable, stock not updated");
+    public ProductDto updateStock(Long id, int stock) {
+        // Product service unavailable, stock not updated
+        return null;
     }
 
     @Override
-    public Map<String, Object> reduceStock(Long id, int quantity) {
-        return Map.of("message", "Product service unavailable, stock not reduced");
+    public ProductDto reduceStock(Long id, int quantity) {
+        // Product service unavailable, stock not reduced
+        return null;
+    }
+
+    @Override
+    public ProductDto increaseStock(Long id, int quantity) {
+        // Product service unavailable, stock not increased
+        return null;
+    }
+
+    @Override
+    public ProductDto increaseStock(Long id, int quantity, String idempotencyKey) {
+        // Product service unavailable, stock not increased
+        return null;
     }
 
     @Override
@@ -85,58 +128,15 @@ public class ProductServiceFallback implements ProductServiceClient {
         );
     }
 
-    private List<Map<String, Object>> getSampleProducts() {
-        return List.of(
-            Map.of(
-                "id", 1,
-                "name", "Gaming Laptop",
-                "category", "Electronics",
-                "description", "High-performance gaming laptop",
-                "price", 75000.0,
-                "stockQuantity", 5,
-                "sku", "ELEGAL001",
-                "isActive", true
-            ),
-            Map.of(
-                "id", 2,
-                "name", "Wireless Earbuds",
-                "category", "Electronics",
-                "description", "Premium wireless earbuds",
-                "price", 8000.0,
-                "stockQuantity", 20,
-                "sku", "ELEWIR002",
-                "isActive", true
-            ),
-            Map.of(
-                "id", 3,
-                "name", "Cotton T-Shirt",
-                "category", "Clothing",
-                "description", "Comfortable cotton t-shirt",
-                "price", 800.0,
-                "stockQuantity", 50,
-                "sku", "CLCOTT003",
-                "isActive", true
-            ),
-            Map.of(
-                "id", 4,
-                "name", "Programming Book",
-                "category", "Books",
-                "description", "Learn Java programming",
-                "price", 1200.0,
-                "stockQuantity", 15,
-                "sku", "BOPRO004",
-                "isActive", true
-            ),
-            Map.of(
-                "id", 5,
-                "name", "Plant Pot",
-                "category", "Home & Garden",
-                "description", "Ceramic plant pot",
-                "price", 300.0,
-                "stockQuantity", 8,
-                "sku", "HOPLA005",
-                "isActive", true
-            )
-        );
+    private List<ProductDto> getSampleProducts() {
+        return SAMPLE_PRODUCTS;
+    }
+
+    /**
+     * True if {@code data} is this fallback's stub catalog (or one of its items), i.e. the
+     * service was unavailable and nothing real was read.
+     */
+    public static boolean isSampleData(Object data) {
+        return data != null && (data == SAMPLE_PRODUCTS || SAMPLE_PRODUCTS.stream().anyMatch(sample -> sample == data));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.example.billing.feign;
+
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link ProductServiceFallback} for a failed call, so the fallback can tell a
+ * 404 from the product service apart from the service being unavailable.
+ */
+@Component
+public class ProductServiceFallbackFactory implements FallbackFactory<ProductServiceClient> {
+
+    @Override
+    public ProductServiceClient create(Throwable cause) {
+        return new ProductServiceFallback(cause);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.billing.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Remembers which sale a client-supplied idempotency key produced, so retried
+ * bill requests return the original sale instead of billing twice. A key is
+ * reserved as PENDING before the bill runs and completed in the sale's own
+ * transaction; the request hash rejects a key reused for a different request.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = {
+    @Index(name = "idx_idempotency_created_at", columnList = "createdAt")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    private Long saleId;
+
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'COMPLETED'")
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String idempotencyKey, Long saleId, LocalDateTime createdAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.saleId = saleId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Long getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(Long saleId) {
+        this.saleId = saleId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public enum Status {
+        PENDING, COMPLETED
+    }
+}
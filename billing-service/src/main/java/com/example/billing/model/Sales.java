@@ -6,6 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_sales_item_id", columnList = "itemId"),
+    @Index(name = "idx_sales_sale_date", columnList = "saleDate"),
+    @Index(name = "idx_sales_category", columnList = "category"),
+    @Index(name = "idx_sales_category_id", columnList = "category_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,13 +19,23 @@ import java.time.LocalDateTime;
 public class Sales {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_seq")
+    @SequenceGenerator(name = "sales_seq", sequenceName = "sales_seq", allocationSize = 50)
     private Long id;
 
+    private Long itemId;
+    private Long productId;
     private String itemName;
     private String category;
+    // Dictionary id of the category (see CategoryDictionary); reports group on this
+    @Column(name = "category_id")
+    private Integer categoryId;
     private int quantitySold;
+    // Unit price at the time of sale
+    private Double unitPrice;
     private double totalAmount;
+    // Exact total in paise; the source for sums and reports
+    private Long totalAmountPaise;
     private LocalDateTime saleDate;
 
     // Explicit getters and setters to ensure they're available
@@ -31,6 +47,14 @@ public class Sales {
         this.category = category;
     }
 
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
     public double getTotalAmount() {
         return totalAmount;
     }
@@ -39,6 +63,14 @@ public class Sales {
         this.totalAmount = totalAmount;
     }
 
+    public Long getTotalAmountPaise() {
+        return totalAmountPaise;
+    }
+
+    public void setTotalAmountPaise(Long totalAmountPaise) {
+        this.totalAmountPaise = totalAmountPaise;
+    }
+
     public int getQuantitySold() {
         return quantitySold;
     }
@@ -47,6 +79,30 @@ public class Sales {
         this.quantitySold = quantitySold;
     }
 
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
     public String getItemName() {
         return itemName;
     }
@@ -78,10 +134,15 @@ public class Sales {
 
     public static class SalesBuilder {
         private Long id;
+        private Long itemId;
+        private Long productId;
         private String itemName;
         private String category;
+        private Integer categoryId;
         private int quantitySold;
+        private Double unitPrice;
         private double totalAmount;
+        private Long totalAmountPaise;
         private LocalDateTime saleDate;
 
         public SalesBuilder id(Long id) {
@@ -89,6 +150,26 @@ public class Sales {
             return this;
         }
 
+        public SalesBuilder itemId(Long itemId) {
+            this.itemId = itemId;
+            return this;
+        }
+
+        public SalesBuilder productId(Long productId) {
+            this.productId = productId;
+            return this;
+        }
+
+        public SalesBuilder totalAmountPaise(Long totalAmountPaise) {
+            this.totalAmountPaise = totalAmountPaise;
+            return this;
+        }
+
+        public SalesBuilder unitPrice(Double unitPrice) {
+            this.unitPrice = unitPrice;
+            return this;
+        }
+
         public SalesBuilder itemName(String itemName) {
             this.itemName = itemName;
             return this;
@@ -99,6 +180,11 @@ public class Sales {
             return this;
         }
 
+        public SalesBuilder categoryId(Integer categoryId) {
+            this.categoryId = categoryId;
+            return this;
+        }
+
         public SalesBuilder quantitySold(int quantitySold) {
             this.quantitySold = quantitySold;
             return this;
@@ -117,10 +203,15 @@ public class Sales {
         public Sales build() {
             Sales sales = new Sales();
             sales.id = this.id;
+            sales.itemId = this.itemId;
+            sales.productId = this.productId;
+            sales.unitPrice = this.unitPrice;
             sales.itemName = this.itemName;
             sales.category = this.category;
+            sales.categoryId = this.categoryId;
             sales.quantitySold = this.quantitySold;
             sales.totalAmount = this.totalAmount;
+            sales.totalAmountPaise = this.totalAmountPaise;
             sales.saleDate = this.saleDate;
             return sales;
         }
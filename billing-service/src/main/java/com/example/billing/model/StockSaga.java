@@ -0,0 +1,184 @@
+package com.example.billing.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Local log of one cross-service stock decrement made while generating a bill.
+ * Each completed step is recorded so a failed bill can be compensated later,
+ * including after a restart. Versioned, so checkout, stale-saga recovery and the
+ * compensation worker cannot overwrite each other's status changes.
+ */
+@Entity
+@Table(name = "stock_sagas", indexes = {
+    @Index(name = "idx_stock_sagas_status", columnList = "status")
+})
+public class StockSaga {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Status status = Status.STARTED;
+
+    private boolean inventoryDecremented;
+
+    private boolean productDecremented;
+
+    private Long saleId;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Constructors
+    public StockSaga() {}
+
+    public StockSaga(Long itemId, int quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.status = Status.STARTED;
+    }
+
+    // Lifecycle methods
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public boolean isInventoryDecremented() {
+        return inventoryDecremented;
+    }
+
+    public void setInventoryDecremented(boolean inventoryDecremented) {
+        this.inventoryDecremented = inventoryDecremented;
+    }
+
+    public boolean isProductDecremented() {
+        return productDecremented;
+    }
+
+    public void setProductDecremented(boolean productDecremented) {
+        this.productDecremented = productDecremented;
+    }
+
+    public Long getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(Long saleId) {
+        this.saleId = saleId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Key sent with the compensating call to one service, so a retried call is applied once.
+     */
+    public String compensationKey(String service) {
+        return "stock-saga-" + id + "-" + service;
+    }
+
+    public enum Status {
+        STARTED, COMPLETED, COMPENSATION_PENDING, COMPENSATING, COMPENSATED, FAILED
+    }
+}
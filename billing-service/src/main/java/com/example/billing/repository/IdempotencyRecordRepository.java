@@ -0,0 +1,53 @@
+package com.example.billing.repository;
+
+import com.example.billing.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Plain insert, so a key reserved concurrently fails on the primary key instead of being merged
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = "INSERT INTO idempotency_records (idempotency_key, status, request_hash, created_at) "
+            + "VALUES (:key, 'PENDING', :requestHash, :reservedAt)")
+    int reserve(@Param("key") String key, @Param("requestHash") String requestHash,
+                @Param("reservedAt") LocalDateTime reservedAt);
+
+    // Takes over a reservation whose request died before its sale was saved, or an expired key
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.billing.model.IdempotencyRecord.Status.PENDING, "
+            + "r.saleId = null, r.requestHash = :requestHash, r.createdAt = :reservedAt WHERE r.idempotencyKey = :key "
+            + "AND ((r.status = com.example.billing.model.IdempotencyRecord.Status.PENDING AND r.createdAt < :pendingCutoff) "
+            + "OR r.createdAt < :expiredCutoff)")
+    int takeOver(@Param("key") String key, @Param("requestHash") String requestHash,
+                 @Param("reservedAt") LocalDateTime reservedAt, @Param("pendingCutoff") LocalDateTime pendingCutoff,
+                 @Param("expiredCutoff") LocalDateTime expiredCutoff);
+
+    // Runs in the sale's transaction; matches only the reservation made by this request
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.billing.model.IdempotencyRecord.Status.COMPLETED, "
+            + "r.saleId = :saleId WHERE r.idempotencyKey = :key "
+            + "AND r.status = com.example.billing.model.IdempotencyRecord.Status.PENDING AND r.createdAt = :reservedAt")
+    int complete(@Param("key") String key, @Param("reservedAt") LocalDateTime reservedAt, @Param("saleId") Long saleId);
+
+    // Frees the key of a failed request so the client can retry it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key "
+            + "AND r.status = com.example.billing.model.IdempotencyRecord.Status.PENDING AND r.createdAt = :reservedAt")
+    int release(@Param("key") String key, @Param("reservedAt") LocalDateTime reservedAt);
+
+    // Remove keys older than the retention window
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+}
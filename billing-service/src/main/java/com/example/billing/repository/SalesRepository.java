@@ -1,9 +1,82 @@
 package com.example.billing.repository;
 
 import com.example.billing.model.Sales;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface SalesRepository extends JpaRepository<Sales, Long> {
+
+    interface CategoryTotal {
+        Integer getCategoryId();
+        Long getTotalPaise();
+    }
+
+    interface ItemUnits {
+        Long getItemId();
+        String getItemName();
+        Long getUnits();
+    }
+
+    // Money rollups are summed in the database as BIGINT paise, grouped on the integer category id
+    @Query("SELECT s.categoryId AS categoryId, SUM(s.totalAmountPaise) AS totalPaise FROM Sales s GROUP BY s.categoryId")
+    List<CategoryTotal> sumTotalAmountPaiseByCategory();
+
+    @Query("SELECT s.categoryId AS categoryId, SUM(s.totalAmountPaise) AS totalPaise FROM Sales s "
+            + "WHERE s.saleDate >= :from AND s.saleDate < :to GROUP BY s.categoryId")
+    List<CategoryTotal> sumTotalAmountPaiseByCategoryBetween(@Param("from") LocalDateTime from,
+                                                            @Param("to") LocalDateTime to);
+
+    // Sales written before category ids existed, grouped by their category text
+    @Query("SELECT DISTINCT s.category FROM Sales s WHERE s.categoryId IS NULL AND s.category IS NOT NULL")
+    List<String> findCategoriesWithoutId();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Sales s SET s.categoryId = :categoryId WHERE s.categoryId IS NULL AND s.category = :category")
+    int assignCategoryId(@Param("category") String category, @Param("categoryId") Integer categoryId);
+
+    // Exact best sellers since a point in time, served by the sale_date index
+    @Query("SELECT s.itemId AS itemId, MAX(s.itemName) AS itemName, SUM(s.quantitySold) AS units FROM Sales s "
+            + "WHERE s.saleDate >= :from AND s.itemId IS NOT NULL GROUP BY s.itemId ORDER BY SUM(s.quantitySold) DESC")
+    List<ItemUnits> sumUnitsByItemSince(@Param("from") LocalDateTime from, Pageable pageable);
+
+    List<Sales> findBySaleDateGreaterThanEqualOrderBySaleDateDesc(LocalDateTime from);
+
+    // Keyset pagination over the whole live table, for listings that union it with the archive
+    List<Sales> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Sales> findAllByOrderBySaleDateDescIdDesc(Pageable pageable);
+
+    // Keyset pagination over recent sales, to warm the in-memory statistics at startup
+    List<Sales> findBySaleDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(LocalDateTime from, Long afterId, Pageable pageable);
+
+    @Query("SELECT MIN(s.saleDate) FROM Sales s")
+    LocalDateTime findOldestSaleDate();
+
+    // Keyset pagination over one period, to write it out to an archive segment
+    List<Sales> findBySaleDateGreaterThanEqualAndSaleDateLessThanAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime from, LocalDateTime to, Long afterId, Pageable pageable);
+
+    // Drops archived rows from the live table once their segment is on disk; by id, so
+    // rows of the same period that were not archived stay
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Sales s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Fills the paise column for rows written before it existed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Sales s SET s.totalAmountPaise = CAST(ROUND(s.totalAmount * 100, 0) AS Long) WHERE s.totalAmountPaise IS NULL")
+    int backfillTotalAmountPaise();
 }
@@ -0,0 +1,31 @@
+package com.example.billing.repository;
+
+import com.example.billing.model.StockSaga;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockSagaRepository extends JpaRepository<StockSaga, Long> {
+
+    List<StockSaga> findByStatusOrderByIdAsc(StockSaga.Status status, Pageable pageable);
+
+    // Sagas left in flight by a crash or restart
+    List<StockSaga> findByStatusAndUpdatedAtBefore(StockSaga.Status status, LocalDateTime cutoff);
+
+    long countByStatus(StockSaga.Status status);
+
+    // Runs in the sale's transaction; matches only a saga still STARTED at the version checkout last saw
+    @Modifying
+    @Query("UPDATE StockSaga s SET s.status = com.example.billing.model.StockSaga.Status.COMPLETED, "
+            + "s.saleId = :saleId, s.updatedAt = :completedAt, s.version = s.version + 1 WHERE s.id = :id "
+            + "AND s.status = com.example.billing.model.StockSaga.Status.STARTED AND s.version = :version")
+    int complete(@Param("id") Long id, @Param("version") long version, @Param("saleId") Long saleId,
+                 @Param("completedAt") LocalDateTime completedAt);
+}
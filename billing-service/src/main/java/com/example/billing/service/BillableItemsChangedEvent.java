@@ -0,0 +1,17 @@
+package com.example.billing.service;
+
+import com.example.billing.feign.InventoryItemDto;
+
+import java.util.List;
+
+/**
+ * Published by {@link BillableItemsView} whenever the set of billable items changes.
+ * {@code upserts} are items that became billable or changed; {@code removed} are ids
+ * that are no longer billable; {@code version} is the view snapshot this change produced.
+ */
+public record BillableItemsChangedEvent(List<InventoryItemDto> upserts, List<Long> removed, long version) {
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.billing.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Events feed of billable items. Clients get the current contents of
+ * {@link BillableItemsView} on connect and then only the changes the view publishes,
+ * so open browser tabs cost nothing while stock is not moving.
+ * <p>
+ * A client is registered before its snapshot is read, so no change can fall between
+ * the two; the snapshot and every delta carry the view version, and clients drop
+ * deltas at or below the snapshot's version.
+ */
+@Service
+public class BillableItemsFeed {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Autowired
+    private BillableItemsView billableItemsView;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        emitters.add(emitter);
+        try {
+            BillableItemsView.VersionedItems current = billableItemsView.getVersionedItems();
+            emitter.send(SseEmitter.event()
+                    .name("snapshot")
+                    .data(Map.of(
+                            "version", current.version(),
+                            "items", current.items())));
+        } catch (IOException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onBillableItemsChanged(BillableItemsChangedEvent event) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        Map<String, Object> delta = Map.of(
+                "version", event.version(),
+                "upserts", event.upserts(),
+                "removed", event.removed());
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("delta").data(delta));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.billing.service;
+
+import com.example.billing.feign.InventoryItemDto;
+import com.example.billing.feign.InventoryServiceClient;
+import com.example.billing.feign.InventoryServiceFallback;
+import com.example.billing.feign.ProductDto;
+import com.example.billing.feign.ProductServiceClient;
+import com.example.billing.feign.ProductServiceFallback;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory materialized view of the items that can be billed, i.e. items present in
+ * both inventory and product services with stock above zero in each.
+ *
+ * Readers get the current immutable snapshot without locking or downstream calls.
+ * Writers (bill generation, cancellations, restores, periodic refresh) build a new
+ * snapshot and swap it in. A periodic refresh reconciles changes made outside billing.
+ *
+ * Every snapshot has a version, one higher than the one before it, and each change
+ * event carries the version it produced. Events are handed to a single publishing
+ * thread while the write lock is held, so listeners see them in version order.
+ */
+@Service
+public class BillableItemsView {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillableItemsView.class);
+
+    // Only the product fields needed to join against inventory items
+    private static final String PRODUCT_STOCK_FIELDS = "id,stockQuantity";
+
+    @Autowired
+    private InventoryServiceClient inventoryServiceClient;
+
+    @Autowired
+    private ProductServiceClient productServiceClient;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private record Entry(InventoryItemDto item, int productStock) {
+        boolean billable() {
+            return item.getQuantity() > 0 && productStock > 0;
+        }
+    }
+
+    private record Snapshot(long version, Map<Long, Entry> entries, List<InventoryItemDto> billable) {}
+
+    /**
+     * The billable items together with the version of the snapshot they came from.
+     */
+    public record VersionedItems(long version, List<InventoryItemDto> items) {}
+
+    private final Object writeLock = new Object();
+
+    // Version at which each item was last changed locally; guarded by writeLock
+    private final Map<Long, Long> localChanges = new HashMap<>();
+
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "billable-items-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public List<InventoryItemDto> getBillableItems() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.billable();
+    }
+
+    public VersionedItems getVersionedItems() {
+        Snapshot current = snapshot;
+        return current == null ? new VersionedItems(0, List.of()) : new VersionedItems(current.version(), current.billable());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Could not build billable items view at startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.billable-view.refresh-ms:30000}",
+               initialDelayString = "${billing.billable-view.refresh-ms:30000}")
+    public void scheduledRefresh() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Billable items view refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdown();
+    }
+
+    /**
+     * Rebuilds the view from full catalog fetches of both services. Items changed locally
+     * while the fetch was in flight keep their current entry: the fetch may or may not
+     * include that change, so the next refresh reconciles them instead.
+     */
+    public void rebuild() {
+        long fetchVersion;
+        synchronized (writeLock) {
+            fetchVersion = snapshot == null ? 0 : snapshot.version();
+        }
+        List<InventoryItemDto> inventoryItems = inventoryServiceClient.getAllItems();
+        List<ProductDto> productItems = productServiceClient.getProductFields(PRODUCT_STOCK_FIELDS);
+        if (InventoryServiceFallback.isSampleData(inventoryItems) || ProductServiceFallback.isSampleData(productItems)) {
+            // a service is down and Feign returned its stub catalog: keep the last good snapshot
+            logger.warn("Billable items view not rebuilt: inventory or product service unavailable");
+            return;
+        }
+
+        Map<Long, Integer> productStock = new HashMap<>(productItems.size() * 2);
+        for (ProductDto product : productItems) {
+            productStock.put(product.getId(), product.getStockQuantity());
+        }
+
+        Map<Long, Entry> entries = new LinkedHashMap<>(inventoryItems.size() * 2);
+        for (InventoryItemDto item : inventoryItems) {
+            Integer stock = productStock.get(item.getId());
+            if (stock != null) {
+                entries.put(item.getId(), new Entry(item, stock));
+            }
+        }
+
+        synchronized (writeLock) {
+            Snapshot previous = snapshot;
+            if (previous != null) {
+                for (Map.Entry<Long, Long> change : localChanges.entrySet()) {
+                    if (change.getValue() > fetchVersion) {
+                        Entry current = previous.entries().get(change.getKey());
+                        if (current == null) {
+                            entries.remove(change.getKey());
+                        } else {
+                            entries.put(change.getKey(), current);
+                        }
+                    }
+                }
+            }
+            localChanges.values().removeIf(version -> version <= fetchVersion);
+            Snapshot next = toSnapshot(previous, entries);
+            snapshot = next;
+            publish(diff(previous, next, null));
+        }
+        logger.info("Billable items view rebuilt: {} billable items", getBillableItems().size());
+    }
+
+    /**
+     * Applies a known stock change for one item, e.g. after a bill or a restore.
+     */
+    public void applyStockChange(Long itemId, int inventoryDelta, int productDelta) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Entry entry = current == null ? null : current.entries().get(itemId);
+            if (entry != null) {
+                InventoryItemDto item = entry.item();
+                InventoryItemDto updated = new InventoryItemDto(item.getId(), item.getName(), item.getCategory(),
+                        item.getPrice(), item.getQuantity() + inventoryDelta);
+                replaceEntry(current, itemId, new Entry(updated, entry.productStock() + productDelta));
+            }
+        }
+    }
+
+    public void setProductStock(Long itemId, int productStock) {
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            Entry entry = current == null ? null : current.entries().get(itemId);
+            if (entry != null) {
+                replaceEntry(current, itemId, new Entry(entry.item(), productStock));
+            }
+        }
+    }
+
+    /**
+     * Re-reads a single item from both services, e.g. after it was edited or deleted.
+     * The entry is only removed when a service answers that the item does not exist;
+     * if a service cannot be reached, the last good entry is kept for the scheduled
+     * rebuild to reconcile.
+     */
+    public void refreshItem(Long itemId) {
+        InventoryItemDto item;
+        ProductDto product;
+        try {
+            item = inventoryServiceClient.getItemById(itemId);
+            product = productServiceClient.getProductById(itemId);
+        } catch (FeignException.NotFound e) {
+            synchronized (writeLock) {
+                Snapshot current = snapshot;
+                if (current != null && current.entries().containsKey(itemId)) {
+                    replaceEntry(current, itemId, null);
+                }
+            }
+            return;
+        } catch (Exception e) {
+            logger.warn("Could not refresh billable item {}: {}", itemId, e.getMessage());
+            return;
+        }
+        if (item == null || product == null
+                || InventoryServiceFallback.isSampleData(item) || ProductServiceFallback.isSampleData(product)) {
+            // a Feign fallback answered: nothing is known about this item, so keep what we have
+            return;
+        }
+
+        synchronized (writeLock) {
+            Snapshot current = snapshot;
+            if (current != null) {
+                replaceEntry(current, itemId, new Entry(item, product.getStockQuantity()));
+            }
+        }
+    }
+
+    // Copies the entry map with one entry replaced and publishes the change; must be called while holding writeLock
+    private void replaceEntry(Snapshot current, Long itemId, Entry entry) {
+        Map<Long, Entry> entries = new LinkedHashMap<>(current.entries());
+        if (entry == null) {
+            entries.remove(itemId);
+        } else {
+            entries.put(itemId, entry);
+        }
+        Snapshot next = toSnapshot(current, entries);
+        snapshot = next;
+        localChanges.put(itemId, next.version());
+        publish(diff(current, next, itemId));
+    }
+
+    private Snapshot toSnapshot(Snapshot previous, Map<Long, Entry> entries) {
+        List<InventoryItemDto> billable = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.billable()) {
+                billable.add(entry.item());
+            }
+        }
+        long version = previous == null ? 1 : previous.version() + 1;
+        return new Snapshot(version, Collections.unmodifiableMap(entries), Collections.unmodifiableList(billable));
+    }
+
+    // Diffs two snapshots, either for a single item or (itemId == null) across all items
+    private BillableItemsChangedEvent diff(Snapshot previous, Snapshot next, Long itemId) {
+        Set<Long> ids = new HashSet<>();
+        if (itemId != null) {
+            ids.add(itemId);
+        } else {
+            ids.addAll(next.entries().keySet());
+            if (previous != null) {
+                ids.addAll(previous.entries().keySet());
+            }
+        }
+
+        List<InventoryItemDto> upserts = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Long id : ids) {
+            Entry before = previous == null ? null : previous.entries().get(id);
+            Entry after = next.entries().get(id);
+            boolean wasBillable = before != null && before.billable();
+            boolean isBillable = after != null && after.billable();
+            if (isBillable && (!wasBillable || changed(before.item(), after.item()))) {
+                upserts.add(after.item());
+            } else if (wasBillable && !isBillable) {
+                removed.add(id);
+            }
+        }
+
+        return new BillableItemsChangedEvent(upserts, removed, next.version());
+    }
+
+    // Queued while holding writeLock, so events leave in version order; delivered on the
+    // publisher thread so slow listeners never block writers
+    private void publish(BillableItemsChangedEvent event) {
+        if (!event.isEmpty()) {
+            publisher.execute(() -> eventPublisher.publishEvent(event));
+        }
+    }
+
+    private boolean changed(InventoryItemDto before, InventoryItemDto after) {
+        return before.getQuantity() != after.getQuantity()
+                || Double.compare(before.getPrice(), after.getPrice()) != 0
+                || !Objects.equals(before.getName(), after.getName())
+                || !Objects.equals(before.getCategory(), after.getCategory());
+    }
+}
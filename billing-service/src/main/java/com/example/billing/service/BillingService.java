@@ -1,19 +1,33 @@
 package com.example.billing.service;
 
+import com.example.billing.feign.InventoryItemDto;
 import com.example.billing.feign.InventoryServiceClient;
+import com.example.billing.feign.InventoryServiceFallback;
+import com.example.billing.feign.ProductDto;
 import com.example.billing.feign.ProductServiceClient;
 import com.example.billing.model.Product;
 import com.example.billing.model.Sales;
+import com.example.billing.model.StockSaga;
 import com.example.billing.repository.SalesRepository;
+import com.example.billing.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,20 +45,57 @@ public class BillingService {
     @Autowired
     private ProductServiceClient productServiceClient;
 
+    @Autowired
+    private BillableItemsView billableItemsView;
+
+    @Autowired
+    private StockSagaService stockSagaService;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TopSellersTracker topSellersTracker;
+
+    @Autowired
+    private SalesQuantiles salesQuantiles;
+
+    @Autowired
+    private SalesColumnStore salesColumnStore;
+
+    @Autowired
+    private SalesArchive salesArchive;
+
+    // Only the product fields needed to join against inventory items
+    private static final String PRODUCT_STOCK_FIELDS = "id,stockQuantity";
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
     public Sales generateBill(Long itemId, int quantity) {
+        return generateBill(itemId, quantity, null);
+    }
+
+    /**
+     * As {@link #generateBill(Long, int)}, completing the reserved {@code idempotencyKey}
+     * in the transaction that saves the sale.
+     */
+    public Sales generateBill(Long itemId, int quantity, String idempotencyKey) {
+        long startNanos = System.nanoTime();
         try {
             System.out.println("🔍 Starting bill generation for item ID: " + itemId + ", quantity: " + quantity);
             
             // STEP 1: Validate item exists in BOTH inventory and product services
-            Map<String, Object> inventoryItem = null;
-            Map<String, Object> productItem = null;
+            InventoryItemDto inventoryItem = null;
+            ProductDto productItem = null;
             
             try {
                 inventoryItem = inventoryServiceClient.getItemById(itemId);
                 if (inventoryItem == null) {
                     throw new RuntimeException("❌ Item not found in inventory service! Item ID: " + itemId);
                 }
-                System.out.println("✅ Item found in inventory: " + inventoryItem.get("name"));
+                System.out.println("✅ Item found in inventory: " + inventoryItem.getName());
             } catch (Exception e) {
                 throw new RuntimeException("❌ Failed to validate item in inventory service: " + e.getMessage());
             }
@@ -54,16 +105,16 @@ public class BillingService {
                 if (productItem == null) {
                     throw new RuntimeException("❌ Item not found in product service! Item ID: " + itemId);
                 }
-                System.out.println("✅ Item found in products: " + productItem.get("name"));
+                System.out.println("✅ Item found in products: " + productItem.getName());
             } catch (Exception e) {
                 throw new RuntimeException("❌ Failed to validate item in product service: " + e.getMessage());
             }
             
             // STEP 2: Verify items are synchronized (same name and category)
-            String inventoryName = (String) inventoryItem.get("name");
-            String productName = (String) productItem.get("name");
-            String inventoryCategory = (String) inventoryItem.get("category");
-            String productCategory = (String) productItem.get("category");
+            String inventoryName = inventoryItem.getName();
+            String productName = productItem.getName();
+            String inventoryCategory = inventoryItem.getCategory();
+            String productCategory = productItem.getCategory();
             
             if (!inventoryName.equals(productName)) {
                 throw new RuntimeException("❌ Item name mismatch! Inventory: '" + inventoryName + "' vs Product: '" + productName + "'");
@@ -76,8 +127,8 @@ public class BillingService {
             System.out.println("✅ Items are synchronized between services");
             
             // STEP 3: Check stock availability in BOTH services
-            Integer inventoryStock = (Integer) inventoryItem.get("quantity");
-            Integer productStock = (Integer) productItem.get("stockQuantity");
+            int inventoryStock = inventoryItem.getQuantity();
+            int productStock = productItem.getStockQuantity();
             
             if (inventoryStock <= 0 || productStock <= 0) {
                 throw new RuntimeException("❌ Item is out of stock! Inventory: " + inventoryStock + ", Product: " + productStock);
@@ -88,7 +139,7 @@ public class BillingService {
             }
             
             // Verify stock consistency between services
-            if (!inventoryStock.equals(productStock)) {
+            if (inventoryStock != productStock) {
                 System.out.println("⚠️ Stock mismatch detected! Inventory: " + inventoryStock + ", Product: " + productStock);
                 throw new RuntimeException("❌ Stock inconsistency! Please sync services. Inventory: " + inventoryStock + ", Product: " + productStock);
             }
@@ -96,37 +147,65 @@ public class BillingService {
             System.out.println("✅ Stock validation passed. Available: " + inventoryStock);
             
             // STEP 4: Calculate bill details
-            double price = ((Number) productItem.get("price")).doubleValue();
-            double totalAmount = price * quantity;
+            double price = productItem.getPrice();
+            long totalAmountPaise = Money.multiply(Money.toPaise(price), quantity);
+            
+            System.out.println("💰 Bill calculation: " + quantity + " × $" + price + " = $" + Money.toBigDecimal(totalAmountPaise));
             
-            System.out.println("💰 Bill calculation: " + quantity + " × $" + price + " = $" + totalAmount);
+            // STEP 5: Reduce stock in BOTH services, recording each step in the saga log
+            StockSaga saga = stockSagaService.begin(itemId, quantity);
             
-            // STEP 5: Reduce stock in BOTH services atomically
+            InventoryItemDto updatedInventory = null;
             try {
-                // Reduce stock in inventory service
-                inventoryServiceClient.updateStock(itemId, quantity);
-                System.out.println("✅ Stock reduced in inventory service");
-                
-                // Reduce stock in product service
-                productServiceClient.reduceStock(itemId, quantity);
-                System.out.println("✅ Stock reduced in product service");
-                
+                updatedInventory = inventoryServiceClient.updateStock(itemId, quantity);
             } catch (Exception e) {
-                // If either service fails, we should ideally rollback
-                System.err.println("❌ Stock reduction failed: " + e.getMessage());
-                throw new RuntimeException("Failed to update stock in services: " + e.getMessage());
+                System.err.println("❌ Inventory stock reduction failed: " + e.getMessage());
             }
+            if (updatedInventory == null) {
+                stockSagaService.abort(saga, "Inventory stock not reduced");
+                throw new RuntimeException("Failed to update stock in inventory service");
+            }
+            saga = stockSagaService.recordInventoryDecremented(saga);
+            System.out.println("✅ Stock reduced in inventory service");
+            
+            ProductDto updatedProduct = null;
+            try {
+                updatedProduct = productServiceClient.reduceStock(itemId, quantity);
+            } catch (Exception e) {
+                System.err.println("❌ Product stock reduction failed: " + e.getMessage());
+            }
+            if (updatedProduct == null) {
+                // Inventory decrement is reverted asynchronously by the saga worker
+                stockSagaService.abort(saga, "Product stock not reduced");
+                throw new RuntimeException("Failed to update stock in product service - inventory stock will be restored");
+            }
+            saga = stockSagaService.recordProductDecremented(saga);
+            System.out.println("✅ Stock reduced in product service");
             
             // STEP 6: Create and save the sales record
             Sales sale = Sales.builder()
+                    .itemId(itemId)
+                    .productId(productItem.getId())
                     .itemName(inventoryName)
                     .category(inventoryCategory)
+                    .categoryId(categoryDictionary.idFor(inventoryCategory))
                     .quantitySold(quantity)
-                    .totalAmount(totalAmount)
+                    .unitPrice(price)
+                    .totalAmount(Money.toDouble(totalAmountPaise))
+                    .totalAmountPaise(totalAmountPaise)
                     .saleDate(LocalDateTime.now())
                     .build();
 
-            Sales savedSale = salesRepository.save(sale);
+            Sales savedSale;
+            try {
+                savedSale = stockSagaService.complete(saga, sale, idempotencyKey);
+            } catch (RuntimeException e) {
+                stockSagaService.abort(saga, "Sale could not be saved: " + e.getMessage());
+                throw e;
+            }
+            billableItemsView.applyStockChange(itemId, -quantity, -quantity);
+            eventPublisher.publishEvent(SalesChangedEvent.recorded(savedSale));
+            salesQuantiles.recordCheckoutLatency((System.nanoTime() - startNanos) / 1_000_000);
             System.out.println("🎉 Bill generated successfully! Sale ID: " + savedSale.getId());
             
             return savedSale;
@@ -137,20 +216,169 @@ public class BillingService {
         }
     }
 
+    /**
+     * Every sale: the archived months first, then the live table read a page at a time,
+     * so sales moved out by the archiver stay listed.
+     */
     public List<Sales> getAllSales() {
-        return salesRepository.findAll();
+        List<Sales> sales = new ArrayList<>(salesArchive.readAll());
+        long afterId = 0;
+        List<Sales> page;
+        do {
+            page = salesRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+            sales.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        return sales;
+    }
+
+    /**
+     * The newest {@code limit} sales, newest first; topped up from the archive when the
+     * live table holds fewer.
+     */
+    public List<Sales> getRecentSales(int limit) {
+        List<Sales> sales = new ArrayList<>(salesRepository.findAllByOrderBySaleDateDescIdDesc(PageRequest.of(0, limit)));
+        if (sales.size() < limit) {
+            sales.addAll(salesArchive.readLatest(limit - sales.size()));
+        }
+        return sales;
+    }
+
+    // Only today's rows, read through the sale_date index
+    public List<Sales> getTodaysSales() {
+        return salesRepository.findBySaleDateGreaterThanEqualOrderBySaleDateDesc(LocalDate.now().atStartOfDay());
+    }
+
+    public Map<String, BigDecimal> getSalesReportByCategory() {
+        // Exact paise sums from the live table plus the archived months, converted for display only
+        return toCategoryReport(salesRepository.sumTotalAmountPaiseByCategory(), salesArchive.sumPaiseByCategory());
+    }
+
+    /**
+     * Category totals for the whole months {@code first} to {@code last}, live and archived.
+     */
+    public Map<String, BigDecimal> getSalesReportByCategory(YearMonth first, YearMonth last) {
+        return toCategoryReport(
+                salesRepository.sumTotalAmountPaiseByCategoryBetween(
+                        first.atDay(1).atStartOfDay(), last.plusMonths(1).atDay(1).atStartOfDay()),
+                salesArchive.sumPaiseByCategory(first, last));
+    }
+
+    /**
+     * Every sale of the whole months {@code first} to {@code last}: archived months first,
+     * then the live table read a page at a time.
+     */
+    public List<Sales> getSalesForMonths(YearMonth first, YearMonth last) {
+        List<Sales> sales = new ArrayList<>(salesArchive.readMonths(first, last));
+        LocalDateTime from = first.atDay(1).atStartOfDay();
+        LocalDateTime to = last.plusMonths(1).atDay(1).atStartOfDay();
+        long afterId = 0;
+        List<Sales> page;
+        do {
+            page = salesRepository.findBySaleDateGreaterThanEqualAndSaleDateLessThanAndIdGreaterThanOrderByIdAsc(
+                    from, to, afterId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+            sales.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        return sales;
+    }
+
+    private Map<String, BigDecimal> toCategoryReport(List<SalesRepository.CategoryTotal> liveTotals,
+                                                 Map<Integer, Long> archivedTotals) {
+        Map<Integer, Long> paiseByCategory = new LinkedHashMap<>();
+        for (SalesRepository.CategoryTotal total : liveTotals) {
+            paiseByCategory.merge(total.getCategoryId(),
+                    total.getTotalPaise() == null ? 0 : total.getTotalPaise(), Long::sum);
+        }
+        archivedTotals.forEach((categoryId, paise) -> paiseByCategory.merge(categoryId, paise, Long::sum));
+
+        // several ids can share a display name (e.g. null and a blank category), so merge paise first
+        Map<String, Long> paiseByName = new LinkedHashMap<>();
+        paiseByCategory.forEach((categoryId, paise) -> {
+            String category = categoryDictionary.nameFor(categoryId);
+            paiseByName.merge(category == null ? "Uncategorized" : category, paise, Long::sum);
+        });
+        Map<String, BigDecimal> report = new LinkedHashMap<>();
+        paiseByName.forEach((category, paise) -> report.put(category, Money.toBigDecimal(paise)));
+        return report;
+    }
+
+    /**
+     * Best-selling items by units for a window (hour, today or week). Served from the
+     * streaming tracker unless {@code exact} is set or the tracker is still warming up.
+     */
+    public Map<String, Object> getTopSellers(String window, int limit, boolean exact) {
+        TopSellersTracker.Window topWindow = TopSellersTracker.Window.parse(window);
+        int size = Math.max(1, Math.min(limit, 100));
+        boolean fromDatabase = exact || !topSellersTracker.isReady();
+        List<TopSellersTracker.TopSeller> sellers = fromDatabase
+                ? topSellersTracker.getExactTopSellers(topWindow, size)
+                : topSellersTracker.getTopSellers(topWindow, size);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", topWindow.name().toLowerCase(Locale.ROOT));
+        result.put("from", topWindow.start(LocalDateTime.now()));
+        result.put("exact", fromDatabase);
+        result.put("items", sellers);
+        return result;
+    }
+
+    /**
+     * Ad-hoc totals over recent sales from the in-memory column store. Null filters are
+     * open; {@code to} is inclusive of the whole day.
+     */
+    public Map<String, Object> getSalesAnalytics(String category, LocalDate from, LocalDate to,
+                                                 Integer minQuantity, Integer maxQuantity) {
+        Integer categoryId = null;
+        if (category != null && !category.isBlank()) {
+            categoryId = categoryDictionary.findId(category).orElse(-1);
+        }
+        long start = System.nanoTime();
+        SalesColumnStore.Result result = salesColumnStore.query(new SalesColumnStore.Filter(
+                categoryId,
+                from == null ? null : from.atStartOfDay(),
+                to == null ? null : to.plusDays(1).atStartOfDay().minusSeconds(1),
+                minQuantity, maxQuantity));
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+        Map<String, Object> byCategory = new LinkedHashMap<>();
+        for (int id = 0; id < result.billsByCategory().length; id++) {
+            if (result.billsByCategory()[id] > 0) {
+                String name = categoryDictionary.nameFor(id);
+                byCategory.put(name == null ? "Uncategorized" : name, Map.of(
+                        "bills", result.billsByCategory()[id],
+                        "units", result.unitsByCategory()[id],
+                        "revenue", Money.toBigDecimal(result.paiseByCategory()[id])));
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ready", salesColumnStore.isReady());
+        response.put("rowsScanned", result.rowsScanned());
+        response.put("bills", result.bills());
+        response.put("units", result.units());
+        response.put("revenue", Money.toBigDecimal(result.paise()));
+        response.put("byCategory", byCategory);
+        response.put("elapsedMicros", elapsedMicros);
+        return response;
     }
 
-    public Map<String, Double> getSalesReportByCategory() {
-        return salesRepository.findAll().stream()
-                .collect(Collectors.groupingBy(Sales::getCategory,
-                        Collectors.summingDouble(Sales::getTotalAmount)));
+    public BigDecimal sumRevenue(List<Sales> sales) {
+        long totalPaise = 0;
+        for (Sales sale : sales) {
+            totalPaise += Money.paiseOrConvert(sale.getTotalAmountPaise(), sale.getTotalAmount());
+        }
+        return Money.toBigDecimal(totalPaise);
     }
 
-    public List<Map<String, Object>> getAllItems() {
+    public List<InventoryItemDto> getAllItems() {
         try {
             // Use Feign client to get real inventory data
-            List<Map<String, Object>> items = inventoryServiceClient.getAllItems();
+            List<InventoryItemDto> items = inventoryServiceClient.getAllItems();
             System.out.println("✅ Successfully retrieved " + items.size() + " items from inventory service");
             return items;
         } catch (Exception e) {
@@ -161,67 +389,36 @@ public class BillingService {
         }
     }
 
-    private List<Map<String, Object>> getSampleItems() {
+    private List<InventoryItemDto> getSampleItems() {
         return List.of(
-            Map.of(
-                "id", 1,
-                "name", "Laptop",
-                "category", "Electronics",
-                "price", 50000.0,
-                "quantity", 10
-            ),
-            Map.of(
-                "id", 2,
-                "name", "Smartphone",
-                "category", "Electronics",
-                "price", 25000.0,
-                "quantity", 15
-            ),
-            Map.of(
-                "id", 3,
-                "name", "Headphones",
-                "category", "Electronics",
-                "price", 2500.0,
-                "quantity", 25
-            ),
-            Map.of(
-                "id", 4,
-                "name", "Wireless Mouse",
-                "category", "Electronics",
-                "price", 1500.0,
-                "quantity", 30
-            ),
-            Map.of(
-                "id", 5,
-                "name", "USB Cable",
-                "category", "Electronics",
-                "price", 500.0,
-                "quantity", 50
-            )
+            new InventoryItemDto(1L, "Laptop", "Electronics", 50000.0, 10),
+            new InventoryItemDto(2L, "Smartphone", "Electronics", 25000.0, 15),
+            new InventoryItemDto(3L, "Headphones", "Electronics", 2500.0, 25),
+            new InventoryItemDto(4L, "Wireless Mouse", "Electronics", 1500.0, 30),
+            new InventoryItemDto(5L, "USB Cable", "Electronics", 500.0, 50)
         );
     }
 
-    private Map<String, Object> getSampleItemById(Long itemId) {
-        List<Map<String, Object>> sampleItems = getSampleItems();
-        return sampleItems.stream()
-                .filter(item -> ((Number) item.get("id")).longValue() == itemId)
+    private InventoryItemDto getSampleItemById(Long itemId) {
+        return getSampleItems().stream()
+                .filter(item -> item.getId().equals(itemId))
                 .findFirst()
                 .orElse(null);
     }
 
-    private Map<String, Object> convertProductToMap(Product product) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", product.getId());
-        map.put("name", product.getName());
-        map.put("category", product.getCategory());
-        map.put("price", product.getPrice().doubleValue());
-        map.put("quantity", product.getStockQuantity());
-        return map;
+    private InventoryItemDto convertProductToItem(Product product) {
+        return new InventoryItemDto(
+            product.getId(),
+            product.getName(),
+            product.getCategory(),
+            product.getPrice().doubleValue(),
+            product.getStockQuantity()
+        );
     }
 
 
 
-    public Map<String, Object> getItemById(Long itemId) {
+    public InventoryItemDto getItemById(Long itemId) {
         try {
             // Try Feign client first
             return inventoryServiceClient.getItemById(itemId);
@@ -230,7 +427,7 @@ public class BillingService {
             try {
                 Product product = productService.getProductById(itemId)
                     .orElse(null);
-                return product != null ? convertProductToMap(product) : getSampleItemById(itemId);
+                return product != null ? convertProductToItem(product) : getSampleItemById(itemId);
             } catch (Exception ex) {
                 return getSampleItemById(itemId);
             }
@@ -238,15 +435,13 @@ public class BillingService {
     }
 
     public void addItem(String name, String category, double price, int quantity) {
-        Map<String, Object> item = Map.of(
-            "name", name,
-            "category", category,
-            "price", price,
-            "quantity", quantity
-        );
+        InventoryItemDto item = new InventoryItemDto(null, name, category, price, quantity);
         
         try {
-            inventoryServiceClient.addItem(item);
+            InventoryItemDto savedItem = inventoryServiceClient.addItem(item);
+            if (savedItem != null) {
+                billableItemsView.refreshItem(savedItem.getId());
+            }
         } catch (Exception e) {
             // Fallback: add to local product service
             try {
@@ -264,15 +459,13 @@ public class BillingService {
     }
 
     public void updateItem(Long id, String name, String category, double price, int quantity) {
-        Map<String, Object> item = Map.of(
-            "name", name,
-            "category", category,
-            "price", price,
-            "quantity", quantity
-        );
+        InventoryItemDto item = new InventoryItemDto(id, name, category, price, quantity);
         
         try {
-            inventoryServiceClient.updateItem(id, item);
+            // a null is the Feign fallback: nothing was written, so there is nothing to refresh
+            if (inventoryServiceClient.updateItem(id, item) != null) {
+                billableItemsView.refreshItem(id);
+            }
         } catch (Exception e) {
             // Fallback: update local product service
             try {
@@ -291,7 +484,9 @@ public class BillingService {
 
     public void deleteItem(Long id) {
         try {
-            inventoryServiceClient.deleteItem(id);
+            if (inventoryServiceClient.deleteItem(id) != null) {
+                billableItemsView.refreshItem(id);
+            }
         } catch (Exception e) {
             // Fallback: delete from local product service
             try {
@@ -309,7 +504,12 @@ public class BillingService {
     public boolean restoreStock(Long itemId, int quantity, String reason) {
         try {
             // Restore stock in inventory service
-            inventoryServiceClient.addStock(itemId, quantity);
+            InventoryItemDto restored = inventoryServiceClient.addStock(itemId, quantity);
+            if (restored == null) {
+                // Fallback answered - inventory service is unavailable
+                throw new RuntimeException("Inventory service unavailable");
+            }
+            billableItemsView.applyStockChange(itemId, quantity, 0);
             System.out.println("✅ Stock restored: " + quantity + " units for item ID: " + itemId + " (" + reason + ")");
             return true;
         } catch (Exception e) {
@@ -318,40 +518,78 @@ public class BillingService {
         }
     }
 
+    @Transactional
     public boolean cancelSale(Long saleId) {
-        try {
-            // Get the sale record
-            Sales sale = salesRepository.findById(saleId)
-                .orElseThrow(() -> new RuntimeException("Sale not found"));
-            
-            // Find the corresponding item (this is simplified - in a real system you'd store item ID)
-            // For now, we'll need to find by name (not ideal, but works for demo)
-            List<Map<String, Object>> items = inventoryServiceClient.getAllItems();
-            Long itemId = null;
-            
-            for (Map<String, Object> item : items) {
-                if (sale.getItemName().equals(item.get("name"))) {
-                    itemId = ((Number) item.get("id")).longValue();
-                    break;
+        return ((Number) cancelSales(List.of(saleId)).get("cancelled")).intValue() == 1;
+    }
+
+    /**
+     * Cancels many sales at once with a single batched delete. The stock is not restored
+     * here: each cancelled sale queues a restock saga in the same transaction, and the
+     * saga worker gives the stock back after commit, once per sale.
+     */
+    @Transactional
+    public Map<String, Object> cancelSales(List<Long> saleIds) {
+        List<Sales> sales = salesRepository.findAllById(saleIds);
+        
+        Set<Long> found = new HashSet<>();
+        Map<String, Long> legacyItemIds = null;
+        Map<Long, List<Sales>> salesByItem = new LinkedHashMap<>();
+        List<Long> failedSaleIds = new ArrayList<>();
+        
+        for (Sales sale : sales) {
+            found.add(sale.getId());
+            Long itemId = sale.getItemId();
+            if (itemId == null) {
+                if (legacyItemIds == null) {
+                    legacyItemIds = loadItemIdsByName();
                 }
+                itemId = legacyItemIds.get(sale.getItemName());
             }
-            
-            if (itemId != null) {
-                // Restore the stock
-                boolean stockRestored = restoreStock(itemId, sale.getQuantitySold(), "Sale cancellation");
-                
-                if (stockRestored) {
-                    // Mark sale as cancelled or delete it
-                    salesRepository.delete(sale);
-                    System.out.println("✅ Sale cancelled and stock restored for: " + sale.getItemName());
-                    return true;
-                }
+            if (itemId == null) {
+                failedSaleIds.add(sale.getId());
+            } else {
+                salesByItem.computeIfAbsent(itemId, id -> new ArrayList<>()).add(sale);
             }
-            return false;
-        } catch (Exception e) {
-            System.err.println("❌ Failed to cancel sale: " + e.getMessage());
-            return false;
         }
+        
+        List<Sales> cancelled = new ArrayList<>();
+        salesByItem.values().forEach(cancelled::addAll);
+        salesRepository.deleteAllInBatch(cancelled);
+        for (Map.Entry<Long, List<Sales>> entry : salesByItem.entrySet()) {
+            for (Sales sale : entry.getValue()) {
+                stockSagaService.queueRestock(entry.getKey(), sale.getQuantitySold(), sale.getId(), "Sale cancellation");
+            }
+        }
+        if (!cancelled.isEmpty()) {
+            eventPublisher.publishEvent(SalesChangedEvent.cancelled(cancelled));
+        }
+        
+        List<Long> notFoundSaleIds = saleIds.stream()
+            .filter(id -> !found.contains(id))
+            .collect(Collectors.toList());
+        
+        System.out.println("✅ Bulk cancellation: " + cancelled.size() + " sales cancelled (stock restore queued), "
+            + failedSaleIds.size() + " failed, " + notFoundSaleIds.size() + " not found");
+        
+        return Map.of(
+            "cancelled", cancelled.size(),
+            "failedSaleIds", failedSaleIds,
+            "notFoundSaleIds", notFoundSaleIds
+        );
+    }
+
+    // Empty if the inventory service is down: stub ids must never be matched to real sales
+    private Map<String, Long> loadItemIdsByName() {
+        Map<String, Long> itemIds = new HashMap<>();
+        List<InventoryItemDto> items = inventoryServiceClient.getAllItems();
+        if (items == null || InventoryServiceFallback.isSampleData(items)) {
+            return itemIds;
+        }
+        for (InventoryItemDto item : items) {
+            itemIds.putIfAbsent(item.getName(), item.getId());
+        }
+        return itemIds;
     }
 
     public Map<String, Object> getStockStatus(Long itemId) {
@@ -366,47 +604,16 @@ public class BillingService {
     }
 
     /**
-     * Get items that are available in BOTH inventory and product services
+     * Get items that are available in BOTH inventory and product services.
+     * Served from the in-memory {@link BillableItemsView} without downstream calls.
      */
-    public List<Map<String, Object>> getAvailableItemsForBilling() {
+    public List<InventoryItemDto> getAvailableItemsForBilling() {
         try {
-            List<Map<String, Object>> inventoryItems = inventoryServiceClient.getAllItems();
-            List<Map<String, Object>> productItems = productServiceClient.getAllProducts();
-            
-            System.out.println("🔍 Found " + inventoryItems.size() + " items in inventory, " + productItems.size() + " items in products");
-            
-            // Filter items that exist in both services with matching stock
-            List<Map<String, Object>> availableItems = inventoryItems.stream()
-                .filter(inventoryItem -> {
-                    Long itemId = Long.valueOf(inventoryItem.get("id").toString());
-                    
-                    // Find matching product
-                    Map<String, Object> matchingProduct = productItems.stream()
-                        .filter(product -> Long.valueOf(product.get("id").toString()).equals(itemId))
-                        .findFirst()
-                        .orElse(null);
-                    
-                    if (matchingProduct == null) {
-                        System.out.println("⚠️ Item '" + inventoryItem.get("name") + "' exists in inventory but not in products");
-                        return false;
-                    }
-                    
-                    // Check stock consistency
-                    Integer inventoryStock = (Integer) inventoryItem.get("quantity");
-                    Integer productStock = (Integer) matchingProduct.get("stockQuantity");
-                    
-                    if (!inventoryStock.equals(productStock)) {
-                        System.out.println("⚠️ Stock mismatch for '" + inventoryItem.get("name") + "': Inventory=" + inventoryStock + ", Product=" + productStock);
-                    }
-                    
-                    // Include item if both have stock > 0
-                    return inventoryStock > 0 && productStock > 0;
-                })
-                .collect(Collectors.toList());
-            
-            System.out.println("✅ " + availableItems.size() + " items are available for billing");
-            return availableItems;
-            
+            if (!billableItemsView.isReady()) {
+                // Startup build failed (e.g. services were down) - build it now
+                billableItemsView.rebuild();
+            }
+            return billableItemsView.getBillableItems();
         } catch (Exception e) {
             System.err.println("❌ Failed to get available items: " + e.getMessage());
             throw new RuntimeException("Failed to get items available for billing: " + e.getMessage());
@@ -421,19 +628,19 @@ public class BillingService {
             System.out.println("🔄 Starting stock synchronization for item ID: " + itemId);
             
             // Get current stock from both services
-            Map<String, Object> inventoryItem = inventoryServiceClient.getItemById(itemId);
-            Map<String, Object> productItem = productServiceClient.getProductById(itemId);
+            InventoryItemDto inventoryItem = inventoryServiceClient.getItemById(itemId);
+            ProductDto productItem = productServiceClient.getProductById(itemId);
             
             if (inventoryItem == null || productItem == null) {
                 throw new RuntimeException("Item not found in one or both services");
             }
             
-            Integer inventoryStock = (Integer) inventoryItem.get("quantity");
-            Integer productStock = (Integer) productItem.get("stockQuantity");
+            int inventoryStock = inventoryItem.getQuantity();
+            int productStock = productItem.getStockQuantity();
             
             System.out.println("📊 Current stock - Inventory: " + inventoryStock + ", Product: " + productStock);
             
-            if (inventoryStock.equals(productStock)) {
+            if (inventoryStock == productStock) {
                 System.out.println("✅ Stock is already synchronized");
                 return Map.of(
                     "status", "already_synced",
@@ -445,6 +652,7 @@ public class BillingService {
             // Use inventory as the source of truth for synchronization
             try {
                 productServiceClient.updateStock(itemId, inventoryStock);
+                billableItemsView.setProductStock(itemId, inventoryStock);
                 System.out.println("✅ Product stock updated to match inventory: " + inventoryStock);
                 
                 return Map.of(
@@ -469,33 +677,30 @@ public class BillingService {
      */
     public Map<String, Object> getSyncStatus() {
         try {
-            List<Map<String, Object>> inventoryItems = inventoryServiceClient.getAllItems();
-            List<Map<String, Object>> productItems = productServiceClient.getAllProducts();
+            List<InventoryItemDto> inventoryItems = inventoryServiceClient.getAllItems();
+            List<ProductDto> productItems = productServiceClient.getProductFields(PRODUCT_STOCK_FIELDS);
+            
+            Map<Long, ProductDto> productsById = indexById(productItems);
             
             int totalItems = inventoryItems.size();
             int syncedItems = 0;
             int stockMismatches = 0;
             List<Map<String, Object>> mismatches = new ArrayList<>();
             
-            for (Map<String, Object> inventoryItem : inventoryItems) {
-                Long itemId = Long.valueOf(inventoryItem.get("id").toString());
-                
-                Map<String, Object> productItem = productItems.stream()
-                    .filter(product -> Long.valueOf(product.get("id").toString()).equals(itemId))
-                    .findFirst()
-                    .orElse(null);
+            for (InventoryItemDto inventoryItem : inventoryItems) {
+                ProductDto productItem = productsById.get(inventoryItem.getId());
                 
                 if (productItem != null) {
                     syncedItems++;
                     
-                    Integer inventoryStock = (Integer) inventoryItem.get("quantity");
-                    Integer productStock = (Integer) productItem.get("stockQuantity");
+                    int inventoryStock = inventoryItem.getQuantity();
+                    int productStock = productItem.getStockQuantity();
                     
-                    if (!inventoryStock.equals(productStock)) {
+                    if (inventoryStock != productStock) {
                         stockMismatches++;
                         mismatches.add(Map.of(
-                            "id", itemId,
-                            "name", inventoryItem.get("name"),
+                            "id", inventoryItem.getId(),
+                            "name", inventoryItem.getName(),
                             "inventoryStock", inventoryStock,
                             "productStock", productStock
                         ));
@@ -516,4 +721,12 @@ public class BillingService {
             throw new RuntimeException("Failed to get sync status: " + e.getMessage());
         }
     }
+
+    private Map<Long, ProductDto> indexById(List<ProductDto> products) {
+        Map<Long, ProductDto> productsById = new HashMap<>(products.size() * 2);
+        for (ProductDto product : products) {
+            productsById.put(product.getId(), product);
+        }
+        return productsById;
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.billing.service;
+
+import com.example.common.category.CategoryDictionarySupport;
+import com.example.billing.model.Category;
+import com.example.billing.repository.CategoryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Category name <-> id dictionary over this service's categories table.
+ */
+@Service
+public class CategoryDictionary extends CategoryDictionarySupport<Category> {
+
+    public CategoryDictionary(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        super(categoryRepository, transactionManager, Category::new);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.billing.service;
+
+import com.example.billing.model.IdempotencyRecord;
+import com.example.billing.model.Sales;
+import com.example.billing.repository.IdempotencyRecordRepository;
+import com.example.billing.repository.SalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys for bill generation. A key is reserved as PENDING in the
+ * idempotency_records table before the bill runs and completed in the same transaction
+ * that saves the sale, so a crash can never leave a sale without its key. Each key
+ * carries a hash of the request it was first used for; reusing it for a different item
+ * or quantity is rejected. Completed keys are cached in memory with a TTL, and
+ * concurrent requests with the same key wait for the first one instead of running twice.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 64;
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private SalesRepository salesRepository;
+
+    @Value("${billing.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${billing.idempotency.pending-timeout-seconds:120}")
+    private long pendingTimeoutSeconds;
+
+    private record CachedResult(Long saleId, String requestHash, LocalDateTime createdAt) {}
+
+    private final ConcurrentHashMap<String, CachedResult> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Sales>> inFlight = new ConcurrentHashMap<>();
+    // created_at of the reservation each running request holds; completing must match it
+    private final ConcurrentHashMap<String, LocalDateTime> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * Rejects a key that cannot be stored: blank, or longer than the key column.
+     */
+    public void validateKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Runs {@code action} once per key. Retries with a key that already completed get
+     * the original sale back without running the action again. {@code request} describes
+     * the request (e.g. item and quantity); a key reused with a different one is rejected
+     * with 422. The action must call {@link #complete} in the transaction saving its sale.
+     */
+    public Sales execute(String key, String request, Supplier<Sales> action) {
+        if (key == null) {
+            return action.get();
+        }
+        validateKey(key);
+        String requestHash = hash(request);
+
+        Optional<Sales> previous = lookup(key, requestHash);
+        if (previous.isPresent()) {
+            logger.info("Returning stored result for idempotency key {}", key);
+            return previous.get();
+        }
+
+        CompletableFuture<Sales> mine = new CompletableFuture<>();
+        CompletableFuture<Sales> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Same key is being processed right now - wait for its outcome
+            Sales sale;
+            try {
+                sale = running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+            // the hash is checked again now that the first request has stored its own
+            return lookup(key, requestHash).orElse(sale);
+        }
+
+        try {
+            // Re-check now that this request owns the key
+            previous = lookup(key, requestHash);
+            Sales sale = previous.isPresent() ? previous.get() : runReserved(key, requestHash, action);
+            mine.complete(sale);
+            return sale;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Marks the reservation held for {@code key} as completed by {@code saleId}. Must run
+     * in the transaction that saves the sale, so the sale and its key commit together.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(String key, Long saleId) {
+        LocalDateTime reservedAt = reservations.get(key);
+        if (reservedAt == null || idempotencyRecordRepository.complete(key, reservedAt, saleId) != 1) {
+            throw new IllegalStateException("Idempotency key " + key + " is no longer reserved by this request");
+        }
+    }
+
+    private Sales runReserved(String key, String requestHash, Supplier<Sales> action) {
+        LocalDateTime reservedAt = reserve(key, requestHash);
+        reservations.put(key, reservedAt);
+        Sales sale;
+        try {
+            sale = action.get();
+        } catch (RuntimeException e) {
+            // Failed attempts are not remembered, so the client can retry
+            idempotencyRecordRepository.release(key, reservedAt);
+            throw e;
+        } finally {
+            reservations.remove(key, reservedAt);
+        }
+        cache.put(key, new CachedResult(sale.getId(), requestHash, reservedAt));
+        return sale;
+    }
+
+    // Inserts a PENDING record, or takes over one left by a request that died or has expired
+    private LocalDateTime reserve(String key, String requestHash) {
+        // millisecond precision, so the value reads back equal from the TIMESTAMP column
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try {
+            idempotencyRecordRepository.reserve(key, requestHash, now);
+            return now;
+        } catch (DataIntegrityViolationException e) {
+            int taken = idempotencyRecordRepository.takeOver(key, requestHash, now,
+                    now.minusSeconds(pendingTimeoutSeconds), now.minusMinutes(ttlMinutes));
+            if (taken == 1) {
+                return now;
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        }
+    }
+
+    private Optional<Sales> lookup(String key, String requestHash) {
+        CachedResult cached = cache.get(key);
+        if (cached == null) {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+            if (record == null) {
+                return Optional.empty();
+            }
+            checkSameRequest(record.getRequestHash(), requestHash);
+            if (record.getStatus() == IdempotencyRecord.Status.PENDING) {
+                // in progress elsewhere, or abandoned; reserving decides which
+                return Optional.empty();
+            }
+            cached = new CachedResult(record.getSaleId(), record.getRequestHash(), record.getCreatedAt());
+            cache.put(key, cached);
+        }
+        if (isExpired(cached)) {
+            cache.remove(key, cached);
+            return Optional.empty();
+        }
+        checkSameRequest(cached.requestHash(), requestHash);
+
+        Optional<Sales> sale = salesRepository.findById(cached.saleId());
+        if (sale.isEmpty()) {
+            throw new RuntimeException("Bill for this request was already generated and has since been cancelled");
+        }
+        return sale;
+    }
+
+    // Records written before request hashes were stored match any request
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private static String hash(String request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private boolean isExpired(CachedResult cached) {
+        return cached.createdAt().isBefore(LocalDateTime.now().minusMinutes(ttlMinutes));
+    }
+
+    @Scheduled(fixedDelayString = "${billing.idempotency.eviction-ms:60000}")
+    @Transactional
+    public void evictExpired() {
+        cache.values().removeIf(this::isExpired);
+        int removed = idempotencyRecordRepository.deleteExpired(LocalDateTime.now().minusMinutes(ttlMinutes));
+        if (removed > 0) {
+            logger.info("Evicted {} expired idempotency keys", removed);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.billing.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Events ticker of live sales totals (last minute, last hour, today).
+ * Clients get the current totals on connect; after that a tick is pushed every
+ * second while anyone is subscribed, since the windows slide (and sales age out of
+ * them) even when nothing was sold.
+ */
+@Service
+public class LiveSalesFeed {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final LiveSalesMetrics liveSalesMetrics;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public LiveSalesFeed(LiveSalesMetrics liveSalesMetrics) {
+        this.liveSalesMetrics = liveSalesMetrics;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(currentTotals()));
+            emitters.add(emitter);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    public Map<String, Object> currentTotals() {
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("lastMinute", liveSalesMetrics.lastMinutes(1));
+        totals.put("lastHour", liveSalesMetrics.lastHours(1));
+        totals.put("today", liveSalesMetrics.today());
+        return totals;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.live-sales.tick-ms:1000}")
+    public void tick() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        Map<String, Object> totals = currentTotals();
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("tick").data(totals));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
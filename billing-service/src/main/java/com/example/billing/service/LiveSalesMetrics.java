@@ -0,0 +1,180 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Live revenue, units and bill counts in two lock-free rings of time buckets: one
+ * per second for the last hour and one per minute for the last day. A sale is three
+ * atomic adds on its bucket; a slot holding an expired bucket is replaced with a
+ * fresh one by CAS. "Last N minutes/hours" and "today so far" sum at most one ring,
+ * O(buckets) regardless of how many sales there were.
+ * <p>
+ * Buckets use local wall-clock time (sale dates are {@link LocalDateTime}), so
+ * "today" starts at local midnight.
+ */
+@Service
+public class LiveSalesMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveSalesMetrics.class);
+    private static final int SECOND_BUCKETS = 3600;
+    private static final int MINUTE_BUCKETS = 1440;
+
+    public record WindowStats(LocalDateTime from, LocalDateTime to, long bills, long units, BigDecimal revenue) {
+    }
+
+    private final SalesRepository salesRepository;
+    private final BucketRing seconds = new BucketRing(1, SECOND_BUCKETS);
+    private final BucketRing minutes = new BucketRing(60, MINUTE_BUCKETS);
+    private final SalesWarmUp loader = new SalesWarmUp();
+
+    public LiveSalesMetrics(SalesRepository salesRepository) {
+        this.salesRepository = salesRepository;
+    }
+
+    public boolean isReady() {
+        return loader.isReady();
+    }
+
+    /**
+     * Loads today's sales (and the part of the last hour before midnight) a page at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hourAgo = now.minusHours(1);
+        LocalDateTime midnight = now.toLocalDate().atStartOfDay();
+        LocalDateTime from = hourAgo.isBefore(midnight) ? hourAgo : midnight;
+        int loaded = loader.run(salesRepository, from, (sale, recorded) -> record(sale, recorded ? 1 : -1));
+        logger.info("Live sales metrics warmed up from {} sales since {}", loaded, from);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (loader.defer(event)) {
+            return;
+        }
+        int sign = event.type() == SalesChangedEvent.Type.RECORDED ? 1 : -1;
+        for (Sales sale : event.sales()) {
+            record(sale, sign);
+        }
+    }
+
+    /**
+     * Totals for the last {@code minutes} minutes up to now; one-second resolution up to
+     * an hour, one-minute resolution beyond that (at most a day).
+     */
+    public WindowStats lastMinutes(int minutes) {
+        int bounded = Math.max(1, Math.min(minutes, MINUTE_BUCKETS));
+        long now = epochSecond(LocalDateTime.now());
+        if (bounded * 60 <= SECOND_BUCKETS) {
+            return seconds.sum(now - bounded * 60L + 1, now);
+        }
+        return this.minutes.sum(now - bounded * 60L + 1, now);
+    }
+
+    public WindowStats lastHours(int hours) {
+        return lastMinutes(Math.max(1, hours) * 60);
+    }
+
+    public WindowStats today() {
+        LocalDateTime now = LocalDateTime.now();
+        return minutes.sum(epochSecond(now.toLocalDate().atStartOfDay()), epochSecond(now));
+    }
+
+    private void record(Sales sale, int sign) {
+        if (sale.getSaleDate() == null) {
+            return;
+        }
+        long second = epochSecond(sale.getSaleDate());
+        long paise = sign * Money.paiseOrConvert(sale.getTotalAmountPaise(), sale.getTotalAmount());
+        long units = (long) sign * sale.getQuantitySold();
+        seconds.add(second, sign, units, paise);
+        minutes.add(second, sign, units, paise);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long second) {
+        return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Fixed ring of buckets of {@code width} seconds. Each slot holds an immutable bucket
+     * id with atomic counters; a writer that finds an older bucket swaps in a new one
+     * with compareAndSet, so no locks are taken and no add is applied to a cleared bucket.
+     */
+    private static final class BucketRing {
+        private final long width;
+        private final AtomicReferenceArray<Bucket> slots;
+
+        private BucketRing(long width, int size) {
+            this.width = width;
+            this.slots = new AtomicReferenceArray<>(size);
+        }
+
+        private void add(long epochSecond, long bills, long units, long paise) {
+            long id = Math.floorDiv(epochSecond, width);
+            int slot = (int) Math.floorMod(id, (long) slots.length());
+            while (true) {
+                Bucket bucket = slots.get(slot);
+                if (bucket != null && bucket.id == id) {
+                    bucket.bills.addAndGet(bills);
+                    bucket.units.addAndGet(units);
+                    bucket.paise.addAndGet(paise);
+                    return;
+                }
+                if ((bucket != null && bucket.id > id) || bills < 0) {
+                    // older than the ring, or a cancellation of a sale no longer (or never) counted here
+                    return;
+                }
+                slots.compareAndSet(slot, bucket, new Bucket(id));
+            }
+        }
+
+        // Sum of the buckets covering [fromSecond, toSecond]
+        private WindowStats sum(long fromSecond, long toSecond) {
+            long first = Math.floorDiv(fromSecond, width);
+            long last = Math.floorDiv(toSecond, width);
+            long bills = 0;
+            long units = 0;
+            long paise = 0;
+            for (long id = Math.max(first, last - slots.length() + 1); id <= last; id++) {
+                Bucket bucket = slots.get((int) Math.floorMod(id, (long) slots.length()));
+                if (bucket != null && bucket.id == id) {
+                    bills += bucket.bills.get();
+                    units += bucket.units.get();
+                    paise += bucket.paise.get();
+                }
+            }
+            return new WindowStats(fromEpochSecond(first * width), fromEpochSecond(toSecond),
+                    bills, units, Money.toBigDecimal(paise));
+        }
+    }
+
+    private static final class Bucket {
+        private final long id;
+        private final AtomicLong bills = new AtomicLong();
+        private final AtomicLong units = new AtomicLong();
+        private final AtomicLong paise = new AtomicLong();
+
+        private Bucket(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -213,6 +213,17 @@ public class ProductService {
 
     // Get products by category
     public List<Product> getProductsByCategory(String category) {
+        try {
+            // Served from Product Service's in-memory read model
+            ResponseEntity<Product[]> response = restTemplate.getForEntity(
+                PRODUCT_SERVICE_URL + "/category/{category}", Product[].class, category);
+            if (response.getBody() != null) {
+                return Arrays.asList(response.getBody());
+            }
+        } catch (Exception e) {
+            System.err.println("Error calling Product Service for category " + category + ": " + e.getMessage());
+            // Fallback to local database
+        }
         return productRepository.findByCategoryIgnoreCaseAndIsActiveTrue(category);
     }
 
@@ -221,9 +232,21 @@ public class ProductService {
         return productRepository.findAllCategories();
     }
 
-    // Get low stock products
+    // Get low stock products from Product Service's low-stock index
     public List<Product> getLowStockProducts(Integer threshold) {
-        return productRepository.findLowStockProducts(threshold != null ? threshold : 5);
+        int limit = threshold != null ? threshold : 5;
+        try {
+            // Product Service returns stock strictly below its threshold; billing's is inclusive
+            ResponseEntity<Product[]> response = restTemplate.getForEntity(
+                PRODUCT_SERVICE_URL + "/low-stock?threshold=" + (limit + 1), Product[].class);
+            if (response.getBody() != null) {
+                return Arrays.asList(response.getBody());
+            }
+        } catch (Exception e) {
+            System.err.println("Error calling Product Service for low stock: " + e.getMessage());
+            // Fallback to local database
+        }
+        return productRepository.findLowStockProducts(limit);
     }
 
     // Get in-stock products
@@ -273,6 +296,18 @@ public class ProductService {
 
     // Find products by price range
     public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        try {
+            // Binary search over Product Service's price-sorted read model
+            ResponseEntity<Product[]> response = restTemplate.getForEntity(
+                PRODUCT_SERVICE_URL + "/price-range?minPrice={min}&maxPrice={max}", Product[].class,
+                minPrice.toPlainString(), maxPrice.toPlainString());
+            if (response.getBody() != null) {
+                return Arrays.asList(response.getBody());
+            }
+        } catch (Exception e) {
+            System.err.println("Error calling Product Service for price range: " + e.getMessage());
+            // Fallback to local database
+        }
         return productRepository.findByPriceRange(minPrice, maxPrice);
     }
 
@@ -315,8 +350,8 @@ public class ProductService {
 
             for (Product product : sampleProducts) {
                 product.setSku(generateSKU(product));
-                productRepository.save(product);
             }
+            productRepository.saveAll(sampleProducts);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,410 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs heavy reports off the request thread. Jobs go to a fixed pool of workers
+ * through a priority queue bounded by a semaphore (a slot is taken before a job is
+ * handed to the pool and given back when it finishes): interactive jobs (dashboard loads) are always
+ * taken before batch jobs (API submissions, exports), first come first served within
+ * a lane. Identical jobs submitted while one is queued or running share it.
+ * <p>
+ * Category results are cached per period together with the sales watermark of that
+ * period they were computed at. Every month has its own watermark, moved when a sale
+ * dated in it is recorded or cancelled or when it is archived; a period's watermark is
+ * the sum over its months (a global counter for "all"). A cached result is served only
+ * while no sale of its period has changed, so today's sales do not invalidate closed
+ * months and years. Exports are not cached: they are whole periods of sales, and the
+ * finished job already holds the result for the client that asked for it.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    private static final String ALL_PERIODS = "all";
+
+    public enum Type {
+        // revenue per category
+        CATEGORY,
+        // every sale of the period
+        EXPORT;
+
+        public static Type parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown report type: " + value + " (expected category or export)");
+            }
+        }
+    }
+
+    /**
+     * Queue lanes, most urgent first.
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BATCH;
+
+        public static Priority parse(String value) {
+            try {
+                return value == null ? BATCH : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown priority: " + value + " (expected interactive or batch)");
+            }
+        }
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * What a job reports on; {@code period} is "all", a year ("2025") or a month ("2025-03").
+     */
+    public record ReportKey(Type type, String period) {
+    }
+
+    public record JobStatus(String id, Type type, String period, Priority priority, Status status, boolean cached,
+                            long watermark, LocalDateTime submittedAt, LocalDateTime startedAt,
+                            LocalDateTime completedAt, String error) {
+    }
+
+    private record CachedReport(long watermark, Object result) {
+    }
+
+    /**
+     * A report for a page load: the newest result available ({@code null} if there is none
+     * yet) and, when that result is not current, the id of the job computing the current one.
+     */
+    public record PageReport<T>(T result, String pendingJobId) {
+        public boolean isPending() {
+            return pendingJobId != null;
+        }
+    }
+
+    // Whole months covered by a period; null bounds mean all sales
+    private record Period(String label, YearMonth first, YearMonth last) {
+    }
+
+    private final BillingService billingService;
+    private final int queueCapacity;
+    private final long jobTtlMinutes;
+    private final ThreadPoolExecutor workers;
+    // one permit per running or queued job
+    private final Semaphore slots;
+    private final AtomicLong watermark = new AtomicLong();
+    private final Map<YearMonth, AtomicLong> monthWatermarks = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<ReportKey, Job> inFlight = new ConcurrentHashMap<>();
+    private final Map<ReportKey, CachedReport> cache;
+
+    public ReportJobService(BillingService billingService,
+                            @Value("${billing.reports.workers:2}") int workerCount,
+                            @Value("${billing.reports.queue-capacity:100}") int queueCapacity,
+                            @Value("${billing.reports.cache-size:64}") int cacheSize,
+                            @Value("${billing.reports.job-ttl-minutes:60}") long jobTtlMinutes) {
+        this.billingService = billingService;
+        this.queueCapacity = queueCapacity;
+        this.jobTtlMinutes = jobTtlMinutes;
+        this.slots = new Semaphore(workerCount + queueCapacity);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // least recently used results are dropped first
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReportKey, CachedReport> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public long getWatermark() {
+        return watermark.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        for (Sales sale : event.sales()) {
+            if (sale.getSaleDate() != null) {
+                advance(YearMonth.from(sale.getSaleDate()));
+            }
+        }
+        watermark.incrementAndGet();
+    }
+
+    @EventListener
+    public void onSalesArchived(SalesArchivedEvent event) {
+        advance(event.month());
+        watermark.incrementAndGet();
+    }
+
+    /**
+     * Queues a report, or returns an already finished job when the cached result is still
+     * current, or the queued/running job for the same report.
+     *
+     * @throws IllegalArgumentException for an unknown period or an export without a period
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public JobStatus submit(Type type, String period, Priority priority) {
+        return submitJob(type, period, priority).toStatus();
+    }
+
+    public Optional<JobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toStatus);
+    }
+
+    /**
+     * Result of a finished job; empty while the job is queued or running.
+     *
+     * @throws IllegalStateException when the job failed
+     */
+    public Optional<Object> getResult(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.result.isDone()) {
+            return Optional.empty();
+        }
+        if (job.status == Status.FAILED) {
+            throw new IllegalStateException(job.error);
+        }
+        return Optional.of(job.result.join());
+    }
+
+    /**
+     * Report for a page load, without waiting: straight from the cache when no sale of the
+     * period has changed since it was computed; otherwise the job computing the current
+     * result is queued in the interactive lane (or joined) and the last cached result, if
+     * any, is returned with that job's id so the page can poll for it.
+     */
+    public PageReport<Object> getReport(Type type, String period) {
+        Period parsed = parsePeriod(period);
+        ReportKey key = new ReportKey(type, parsed.label());
+        CachedReport cached = cache.get(key);
+        Object stale = cached == null ? null : cached.result();
+        if (cached != null && cached.watermark() == watermarkOf(parsed)) {
+            return new PageReport<>(stale, null);
+        }
+        try {
+            Job job = submitJob(type, period, Priority.INTERACTIVE);
+            if (job.status == Status.DONE) {
+                return new PageReport<>(job.result.join(), null);
+            }
+            if (job.status == Status.FAILED) {
+                logger.error("Report {} failed: {}", key, job.error);
+                return new PageReport<>(stale, null);
+            }
+            return new PageReport<>(stale, job.id);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Report {} not queued, serving last cached result: {}", key, e.getMessage());
+            return new PageReport<>(stale, null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public PageReport<Map<String, BigDecimal>> getCategoryReport(String period) {
+        PageReport<Object> report = getReport(Type.CATEGORY, period);
+        return new PageReport<>((Map<String, BigDecimal>) report.result(), report.pendingJobId());
+    }
+
+    // Forgets finished jobs once their ttl has passed; cached results stay
+    @Scheduled(fixedDelayString = "${billing.reports.eviction-ms:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private Job submitJob(Type type, String period, Priority priority) {
+        Period parsed = parsePeriod(period);
+        if (type == Type.EXPORT && parsed.first() == null) {
+            throw new IllegalArgumentException("Exports need a year or month period");
+        }
+        ReportKey key = new ReportKey(type, parsed.label());
+        long mark = watermarkOf(parsed);
+
+        CachedReport cached = cache.get(key);
+        if (cached != null && cached.watermark() == mark) {
+            Job job = new Job(key, parsed, priority, mark, true);
+            job.completedAt = job.submittedAt;
+            job.status = Status.DONE;
+            job.result.complete(cached.result());
+            jobs.put(job.id, job);
+            return job;
+        }
+
+        synchronized (inFlight) {
+            Job running = inFlight.get(key);
+            if (running != null && running.watermark == mark) {
+                return running;
+            }
+            if (!slots.tryAcquire()) {
+                throw new RejectedExecutionException("Report queue is full (" + queueCapacity + " jobs)");
+            }
+            Job job = new Job(key, parsed, priority, mark, false);
+            jobs.put(job.id, job);
+            inFlight.put(key, job);
+            try {
+                workers.execute(job);
+            } catch (RejectedExecutionException e) {
+                // shutting down: the job never reaches run(), which gives the slot back
+                jobs.remove(job.id);
+                inFlight.remove(key, job);
+                slots.release();
+                throw e;
+            }
+            return job;
+        }
+    }
+
+    // Sum of the month watermarks: each only grows, so the sum moves whenever one of them does
+    private long watermarkOf(Period period) {
+        if (period.first() == null) {
+            return watermark.get();
+        }
+        long mark = 0;
+        for (YearMonth month = period.first(); !month.isAfter(period.last()); month = month.plusMonths(1)) {
+            AtomicLong monthMark = monthWatermarks.get(month);
+            if (monthMark != null) {
+                mark += monthMark.get();
+            }
+        }
+        return mark;
+    }
+
+    private void advance(YearMonth month) {
+        monthWatermarks.computeIfAbsent(month, m -> new AtomicLong()).incrementAndGet();
+    }
+
+    private Object compute(ReportKey key, Period period) {
+        return switch (key.type()) {
+            case CATEGORY -> period.first() == null
+                    ? billingService.getSalesReportByCategory()
+                    : billingService.getSalesReportByCategory(period.first(), period.last());
+            case EXPORT -> billingService.getSalesForMonths(period.first(), period.last());
+        };
+    }
+
+    private static Period parsePeriod(String period) {
+        String value = period == null ? ALL_PERIODS : period.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (value.isEmpty() || value.equals(ALL_PERIODS)) {
+                return new Period(ALL_PERIODS, null, null);
+            }
+            if (value.length() == 4) {
+                Year year = Year.parse(value);
+                return new Period(year.toString(), year.atMonth(1), year.atMonth(12));
+            }
+            YearMonth month = YearMonth.parse(value);
+            return new Period(month.toString(), month, month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid period: " + period + " (expected all, yyyy or yyyy-MM)");
+        }
+    }
+
+    /**
+     * One submitted report. Ordered by lane, then by submission.
+     */
+    private final class Job implements Runnable, Comparable<Job> {
+        private final String id = UUID.randomUUID().toString();
+        private final long order = sequence.incrementAndGet();
+        private final ReportKey key;
+        private final Period period;
+        private final Priority priority;
+        private final long watermark;
+        private final boolean cached;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+        private volatile String error;
+
+        private Job(ReportKey key, Period period, Priority priority, long watermark, boolean cached) {
+            this.key = key;
+            this.period = period;
+            this.priority = priority;
+            this.watermark = watermark;
+            this.cached = cached;
+        }
+
+        @Override
+        public void run() {
+            status = Status.RUNNING;
+            startedAt = LocalDateTime.now();
+            try {
+                Object report = compute(key, period);
+                if (key.type() != Type.EXPORT) {
+                    // stored with the watermark seen at submission: sales landing meanwhile make it stale
+                    cache.put(key, new CachedReport(watermark, report));
+                }
+                completedAt = LocalDateTime.now();
+                status = Status.DONE;
+                result.complete(report);
+                logger.info("Report {} ({}) finished in {} ms", key, priority,
+                        Duration.between(startedAt, completedAt).toMillis());
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+                completedAt = LocalDateTime.now();
+                status = Status.FAILED;
+                result.completeExceptionally(e);
+                logger.error("Report {} failed: {}", key, e.getMessage(), e);
+            } finally {
+                inFlight.remove(key, this);
+                slots.release();
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byLane = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byLane != 0 ? byLane : Long.compare(order, other.order);
+        }
+
+        private JobStatus toStatus() {
+            return new JobStatus(id, key.type(), key.period(), priority, status, cached, watermark,
+                    submittedAt, startedAt, completedAt, error);
+        }
+    }
+}
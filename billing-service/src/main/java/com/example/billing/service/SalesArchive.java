@@ -0,0 +1,308 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Monthly partitioning of sales: the current month and the {@code hot-months} before it
+ * stay in the {@code sales} table, older months are moved out to one immutable
+ * {@link SalesSegmentFile} per month. Archiving writes the segment and makes it durable,
+ * deletes exactly the archived rows (by id) from the table in one transaction, and only
+ * then hands the segment to reports, which add the archived totals to the live table's.
+ * A crash in between leaves a segment whose rows may still be in the table; it is not
+ * reported until those rows are deleted on the next start or run. Sales dated in an
+ * archived month that land after its segment was written stay in the table.
+ * <p>
+ * Archived sales are read-only: they can no longer be cancelled.
+ */
+@Service
+public class SalesArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesArchive.class);
+    private static final int PAGE_SIZE = 1000;
+    private static final String SEGMENT_PREFIX = "sales-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public record SegmentInfo(YearMonth month, int rows, long sizeBytes, String file) {
+    }
+
+    private final SalesRepository salesRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final int hotMonths;
+    private final NavigableMap<YearMonth, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile boolean opened;
+
+    public SalesArchive(SalesRepository salesRepository, ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${billing.archive.dir:./data/sales-archive}") String directory,
+                        @Value("${billing.archive.hot-months:3}") int hotMonths) {
+        this.salesRepository = salesRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Paths.get(directory);
+        this.hotMonths = Math.max(1, hotMonths);
+    }
+
+    /**
+     * Maps the existing segments, then archives anything that went cold while the service was down.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        List<SalesSegmentFile> found = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                        // a write that never reached its rename
+                        Files.deleteIfExists(file);
+                    } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        found.add(SalesSegmentFile.open(file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open sales archive " + directory, e);
+        }
+        for (SalesSegmentFile segment : found) {
+            try {
+                publish(segment);
+            } catch (RuntimeException e) {
+                // left unpublished; archiveMonth retries while its rows are in the table
+                logger.error("Failed to open archived sales for {}: {}", segment.getMonth(), e.getMessage(), e);
+            }
+        }
+        opened = true;
+        logger.info("Sales archive at {} has {} monthly segments", directory.toAbsolutePath(), segments.size());
+        archiveColdMonths();
+    }
+
+    @Scheduled(cron = "${billing.archive.cron:0 30 2 * * *}")
+    public void archiveColdMonths() {
+        if (!opened) {
+            return;
+        }
+        LocalDateTime oldest = salesRepository.findOldestSaleDate();
+        if (oldest == null) {
+            return;
+        }
+        YearMonth firstHot = YearMonth.now().minusMonths(hotMonths);
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(firstHot); month = month.plusMonths(1)) {
+            try {
+                archiveMonth(month);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to archive sales for {}: {}", month, e.getMessage(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves one month of sales from the table into a segment; returns the rows moved.
+     */
+    public synchronized int archiveMonth(YearMonth month) throws IOException {
+        if (segments.containsKey(month)) {
+            // rows still dated in the month arrived after it was archived; they stay in the table
+            return 0;
+        }
+        Path file = directory.resolve(SEGMENT_PREFIX + month + SEGMENT_SUFFIX);
+        if (Files.exists(file)) {
+            // never overwrite a segment: written last time, but the delete did not complete
+            publish(SalesSegmentFile.open(file));
+            return 0;
+        }
+
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        List<Sales> sales = new ArrayList<>();
+        long afterId = 0;
+        List<Sales> page;
+        do {
+            page = salesRepository.findBySaleDateGreaterThanEqualAndSaleDateLessThanAndIdGreaterThanOrderByIdAsc(
+                    from, to, afterId, PageRequest.of(0, PAGE_SIZE));
+            sales.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        if (sales.isEmpty()) {
+            return 0;
+        }
+
+        SalesSegmentFile.write(file, month, sales);
+        SalesSegmentFile segment = SalesSegmentFile.open(file);
+        int deleted = deleteArchivedRows(segment);
+        segments.put(month, new Segment(segment));
+        logger.info("Archived {} sales for {} to {} ({} rows removed from the table)",
+                sales.size(), month, file, deleted);
+        eventPublisher.publishEvent(new SalesArchivedEvent(month, sales.size()));
+        return sales.size();
+    }
+
+    // Deletes whatever rows of the segment are still in the table, then reports the segment
+    private synchronized void publish(SalesSegmentFile segment) {
+        int deleted = deleteArchivedRows(segment);
+        segments.put(segment.getMonth(), new Segment(segment));
+        if (deleted > 0) {
+            logger.info("Removed {} already archived sales for {}", deleted, segment.getMonth());
+            eventPublisher.publishEvent(new SalesArchivedEvent(segment.getMonth(), deleted));
+        }
+    }
+
+    // One transaction, so reports never see the table with part of the month removed
+    private int deleteArchivedRows(SalesSegmentFile segment) {
+        List<Long> ids = new ArrayList<>(segment.getRowCount());
+        for (long id : segment.longColumn(SalesSegmentFile.Column.ID)) {
+            ids.add(id);
+        }
+        Integer deleted = transactionTemplate.execute(status -> {
+            int rows = 0;
+            for (int start = 0; start < ids.size(); start += PAGE_SIZE) {
+                rows += salesRepository.deleteByIdIn(ids.subList(start, Math.min(ids.size(), start + PAGE_SIZE)));
+            }
+            return rows;
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    public List<SegmentInfo> listSegments() {
+        List<SegmentInfo> infos = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            SalesSegmentFile file = segment.file;
+            infos.add(new SegmentInfo(file.getMonth(), file.getRowCount(), file.getSizeBytes(),
+                    file.getPath().getFileName().toString()));
+        }
+        return infos;
+    }
+
+    public Optional<List<Sales>> readMonth(YearMonth month) {
+        Segment segment = segments.get(month);
+        return segment == null ? Optional.empty() : Optional.of(segment.file.readAll());
+    }
+
+    /**
+     * Archived revenue in paise per category id (null for uncategorized) over every segment.
+     */
+    public Map<Integer, Long> sumPaiseByCategory() {
+        return sumPaiseByCategory(segments.values());
+    }
+
+    /**
+     * As {@link #sumPaiseByCategory()}, for the archived months from {@code first} to {@code last} inclusive.
+     */
+    public Map<Integer, Long> sumPaiseByCategory(YearMonth first, YearMonth last) {
+        return sumPaiseByCategory(segments.subMap(first, true, last, true).values());
+    }
+
+    /**
+     * Every archived sale, oldest month first.
+     */
+    public List<Sales> readAll() {
+        List<Sales> sales = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            sales.addAll(segment.file.readAll());
+        }
+        return sales;
+    }
+
+    /**
+     * The newest {@code limit} archived sales, newest first; only the months needed are read.
+     */
+    public List<Sales> readLatest(int limit) {
+        List<Sales> sales = new ArrayList<>(Math.max(0, limit));
+        for (Segment segment : segments.descendingMap().values()) {
+            if (sales.size() >= limit) {
+                break;
+            }
+            List<Sales> month = new ArrayList<>(segment.file.readAll());
+            month.sort(Comparator.comparing(Sales::getSaleDate).thenComparing(Sales::getId).reversed());
+            sales.addAll(month.subList(0, Math.min(month.size(), limit - sales.size())));
+        }
+        return sales;
+    }
+
+    public List<Sales> readMonths(YearMonth first, YearMonth last) {
+        List<Sales> sales = new ArrayList<>();
+        for (Segment segment : segments.subMap(first, true, last, true).values()) {
+            sales.addAll(segment.file.readAll());
+        }
+        return sales;
+    }
+
+    private static Map<Integer, Long> sumPaiseByCategory(Collection<Segment> selected) {
+        Map<Integer, Long> totals = new HashMap<>();
+        for (Segment segment : selected) {
+            segment.paiseByCategory().forEach((categoryId, paise) -> totals.merge(categoryId, paise, Long::sum));
+        }
+        return totals;
+    }
+
+    /**
+     * One mapped segment; its category totals are computed on first use and kept, since
+     * the file never changes.
+     */
+    private static final class Segment {
+        private final SalesSegmentFile file;
+        private volatile Map<Integer, Long> paiseByCategory;
+
+        private Segment(SalesSegmentFile file) {
+            this.file = file;
+        }
+
+        private Map<Integer, Long> paiseByCategory() {
+            Map<Integer, Long> totals = paiseByCategory;
+            if (totals == null) {
+                int[] categoryIds = file.intColumn(SalesSegmentFile.Column.CATEGORY_ID);
+                long[] paise = file.longColumn(SalesSegmentFile.Column.TOTAL_PAISE);
+                double[] amounts = null;
+                totals = new HashMap<>();
+                for (int i = 0; i < categoryIds.length; i++) {
+                    long amount = paise[i];
+                    if (amount == SalesSegmentFile.NULL_LONG) {
+                        // rows archived before the paise column was backfilled
+                        if (amounts == null) {
+                            amounts = file.doubleColumn(SalesSegmentFile.Column.TOTAL_AMOUNT);
+                        }
+                        amount = Money.toPaise(amounts[i]);
+                    }
+                    totals.merge(categoryIds[i] == SalesSegmentFile.NULL_CATEGORY ? null : categoryIds[i], amount, Long::sum);
+                }
+                paiseByCategory = totals;
+            }
+            return totals;
+        }
+    }
+}
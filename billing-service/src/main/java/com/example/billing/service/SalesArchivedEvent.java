@@ -0,0 +1,11 @@
+package com.example.billing.service;
+
+import java.time.YearMonth;
+
+/**
+ * Published by {@link SalesArchive} after a month of sales has moved from the sales
+ * table to its segment file. Totals over live plus archived data do not change, but
+ * anything computed while the move was in progress may have counted the month twice.
+ */
+public record SalesArchivedEvent(YearMonth month, int rows) {
+}
@@ -0,0 +1,26 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+
+import java.util.List;
+
+/**
+ * Published by {@link BillingService} when sales are recorded or cancelled, so the
+ * in-memory sales statistics can follow without querying the sales table.
+ * Delivered to transactional listeners after commit.
+ */
+public record SalesChangedEvent(List<Sales> sales, Type type) {
+
+    public enum Type {
+        RECORDED,
+        CANCELLED
+    }
+
+    public static SalesChangedEvent recorded(Sales sale) {
+        return new SalesChangedEvent(List.of(sale), Type.RECORDED);
+    }
+
+    public static SalesChangedEvent cancelled(List<Sales> sales) {
+        return new SalesChangedEvent(List.copyOf(sales), Type.CANCELLED);
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Recent sales history in columnar form for ad-hoc dashboard filtering. Each field is
+ * a primitive array (sale time in local epoch seconds, category id, quantity, amount in
+ * paise, sale id), split into fixed-size chunks that are appended to as sales land and
+ * dropped whole once they fall out of the retention period. A query is a fork-join
+ * scan over the chunks with a branch-free inner loop: no database round trip and no
+ * object per row.
+ * <p>
+ * One writer at a time (appends, cancellations and eviction are synchronized); readers
+ * take no lock and see every row up to a chunk's published size, and every
+ * cancellation made before the query started.
+ */
+@Service
+public class SalesColumnStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesColumnStore.class);
+    private static final int CHUNK_ROWS = 1 << 16;
+    // Rows per fork-join leaf; one chunk is already big enough to be worth a task
+    private static final int SCAN_SLICE = 1 << 16;
+    // Time value of a cancelled row; lower than any time a query can ask for
+    private static final long TOMBSTONE = Long.MIN_VALUE;
+
+    /**
+     * Query over the store; null bounds are open. Times are inclusive local date-times.
+     */
+    public record Filter(Integer categoryId, LocalDateTime from, LocalDateTime to, Integer minQuantity,
+                         Integer maxQuantity) {
+    }
+
+    /**
+     * Totals of the matching rows; the per-category arrays are indexed by category id.
+     */
+    public record Result(long rowsScanned, long bills, long units, long paise,
+                         long[] billsByCategory, long[] unitsByCategory, long[] paiseByCategory) {
+    }
+
+    private final SalesRepository salesRepository;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    // Replaced, never modified: by appends that open a chunk, by eviction, and by every
+    // cancellation, so a query that reads it sees all tombstones written before
+    private volatile Chunk[] chunks = new Chunk[0];
+    private final SalesWarmUp loader = new SalesWarmUp();
+
+    @Value("${billing.analytics.retention-days:90}")
+    private int retentionDays;
+
+    public SalesColumnStore(SalesRepository salesRepository) {
+        this.salesRepository = salesRepository;
+    }
+
+    public boolean isReady() {
+        return loader.isReady();
+    }
+
+    /**
+     * Loads the retained sales a page at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime from = LocalDateTime.now().minusDays(retentionDays);
+        loader.run(salesRepository, from, (sale, recorded) -> {
+            if (recorded) {
+                append(sale);
+            } else {
+                remove(sale.getId());
+            }
+        });
+        logger.info("Sales column store loaded {} rows since {}", size(), from);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (loader.defer(event)) {
+            return;
+        }
+        for (Sales sale : event.sales()) {
+            if (event.type() == SalesChangedEvent.Type.RECORDED) {
+                append(sale);
+            } else {
+                remove(sale.getId());
+            }
+        }
+    }
+
+    public long size() {
+        long rows = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.size;
+        }
+        return rows;
+    }
+
+    public Result query(Filter filter) {
+        // volatile read: pairs with the write in remove(), and invoke() hands it on to the scan tasks
+        Chunk[] snapshot = chunks;
+        Scan scan = new Scan(snapshot, 0, snapshot.length, new Bounds(filter));
+        return pool.invoke(scan);
+    }
+
+    // Drops whole chunks whose newest row is older than the retention period
+    @Scheduled(fixedDelayString = "${billing.analytics.eviction-ms:3600000}")
+    public synchronized void evict() {
+        long cutoff = epochSecond(LocalDateTime.now().minusDays(retentionDays));
+        Chunk[] current = chunks;
+        int drop = 0;
+        // the last chunk is still being written to
+        while (drop < current.length - 1 && current[drop].maxTime < cutoff) {
+            drop++;
+        }
+        if (drop > 0) {
+            chunks = Arrays.copyOfRange(current, drop, current.length);
+            logger.info("Evicted {} sales chunks older than {} days", drop, retentionDays);
+        }
+    }
+
+    private synchronized void append(Sales sale) {
+        if (sale.getSaleDate() == null || sale.getId() == null) {
+            return;
+        }
+        Chunk[] current = chunks;
+        Chunk tail = current.length == 0 ? null : current[current.length - 1];
+        if (tail == null || tail.size == CHUNK_ROWS) {
+            tail = new Chunk();
+            Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = tail;
+            chunks = grown;
+        }
+        int row = tail.size;
+        int categoryId = sale.getCategoryId() == null ? 0 : sale.getCategoryId();
+        long time = epochSecond(sale.getSaleDate());
+        tail.ids[row] = sale.getId();
+        tail.times[row] = time;
+        tail.categoryIds[row] = categoryId;
+        tail.quantities[row] = sale.getQuantitySold();
+        tail.paise[row] = Money.paiseOrConvert(sale.getTotalAmountPaise(), sale.getTotalAmount());
+        tail.maxTime = Math.max(tail.maxTime, time);
+        tail.maxCategoryId = Math.max(tail.maxCategoryId, categoryId);
+        // volatile write publishes the row to readers
+        tail.size = row + 1;
+    }
+
+    // Cancellations are rare and usually recent, so search from the newest row back
+    private synchronized void remove(Long saleId) {
+        if (saleId == null) {
+            return;
+        }
+        Chunk[] current = chunks;
+        for (int c = current.length - 1; c >= 0; c--) {
+            Chunk chunk = current[c];
+            for (int row = chunk.size - 1; row >= 0; row--) {
+                if (chunk.ids[row] == saleId) {
+                    chunk.times[row] = TOMBSTONE;
+                    // the plain array store is published by the volatile write of a new snapshot
+                    chunks = Arrays.copyOf(current, current.length);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Chunk {
+        private final long[] ids = new long[CHUNK_ROWS];
+        private final long[] times = new long[CHUNK_ROWS];
+        private final int[] categoryIds = new int[CHUNK_ROWS];
+        private final int[] quantities = new int[CHUNK_ROWS];
+        private final long[] paise = new long[CHUNK_ROWS];
+        private volatile int size;
+        private long maxTime = Long.MIN_VALUE;
+        // written before size, so a reader that has read size sees a bound for every published row
+        private int maxCategoryId;
+    }
+
+    // Filter flattened to primitives for the scan loop
+    private record Bounds(boolean anyCategory, int categoryId, long fromTime, long toTime, int minQuantity,
+                          int maxQuantity) {
+        private Bounds(Filter filter) {
+            this(filter.categoryId() == null,
+                    filter.categoryId() == null ? 0 : filter.categoryId(),
+                    filter.from() == null ? TOMBSTONE + 1 : epochSecond(filter.from()),
+                    filter.to() == null ? Long.MAX_VALUE : epochSecond(filter.to()),
+                    filter.minQuantity() == null ? Integer.MIN_VALUE : filter.minQuantity(),
+                    filter.maxQuantity() == null ? Integer.MAX_VALUE : filter.maxQuantity());
+        }
+    }
+
+    /**
+     * Splits the chunk range in halves until one chunk is left, then scans it.
+     */
+    private static final class Scan extends RecursiveTask<Result> {
+        private final Chunk[] chunks;
+        private final int firstChunk;
+        private final int endChunk;
+        private final Bounds bounds;
+
+        private Scan(Chunk[] chunks, int firstChunk, int endChunk, Bounds bounds) {
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+            this.bounds = bounds;
+        }
+
+        @Override
+        protected Result compute() {
+            if (endChunk - firstChunk > 1) {
+                int middle = (firstChunk + endChunk) >>> 1;
+                Scan left = new Scan(chunks, firstChunk, middle, bounds);
+                Scan right = new Scan(chunks, middle, endChunk, bounds);
+                left.fork();
+                Result rightResult = right.compute();
+                return combine(left.join(), rightResult);
+            }
+            if (endChunk == firstChunk) {
+                return new Result(0, 0, 0, 0, new long[0], new long[0], new long[0]);
+            }
+            Chunk chunk = chunks[firstChunk];
+            // read once: rows appended during the scan are simply not included
+            int size = chunk.size;
+            // dense per-category totals: every row up to size has a category id <= the chunk's maximum
+            int categories = chunk.maxCategoryId + 1;
+            long[] billsByCategory = new long[categories];
+            long[] unitsByCategory = new long[categories];
+            long[] paiseByCategory = new long[categories];
+            long[] times = chunk.times;
+            int[] categoryIds = chunk.categoryIds;
+            int[] quantities = chunk.quantities;
+            long[] amounts = chunk.paise;
+            long fromTime = bounds.fromTime();
+            long toTime = bounds.toTime();
+            int minQuantity = bounds.minQuantity();
+            int maxQuantity = bounds.maxQuantity();
+            boolean anyCategory = bounds.anyCategory();
+            int categoryId = bounds.categoryId();
+            long bills = 0;
+            long units = 0;
+            long paise = 0;
+            for (int i = 0; i < size; i++) {
+                long time = times[i];
+                int quantity = quantities[i];
+                int category = categoryIds[i];
+                // non-short-circuit & keeps the loop free of data-dependent branches
+                int match = (time >= fromTime & time <= toTime & quantity >= minQuantity & quantity <= maxQuantity
+                        & (anyCategory | category == categoryId)) ? 1 : 0;
+                bills += match;
+                units += (long) match * quantity;
+                paise += match * amounts[i];
+                billsByCategory[category] += match;
+                unitsByCategory[category] += (long) match * quantity;
+                paiseByCategory[category] += match * amounts[i];
+            }
+            return new Result(size, bills, units, paise, billsByCategory, unitsByCategory, paiseByCategory);
+        }
+
+        // Chunks can know different category ids; the totals take the longer arrays
+        private static Result combine(Result left, Result right) {
+            return new Result(left.rowsScanned() + right.rowsScanned(), left.bills() + right.bills(),
+                    left.units() + right.units(), left.paise() + right.paise(),
+                    sum(left.billsByCategory(), right.billsByCategory()),
+                    sum(left.unitsByCategory(), right.unitsByCategory()),
+                    sum(left.paiseByCategory(), right.paiseByCategory()));
+        }
+
+        private static long[] sum(long[] a, long[] b) {
+            long[] longer = a.length >= b.length ? a : b;
+            long[] shorter = longer == a ? b : a;
+            for (int c = 0; c < shorter.length; c++) {
+                longer[c] += shorter[c];
+            }
+            return longer;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.util.DDSketch;
+import com.example.billing.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Percentiles of bill value and quantity per category, and of checkout latency,
+ * from {@link DDSketch}es kept per hour for the last 24 hours. Sales are added
+ * (and cancellations removed) as they happen, so a percentile is a merge of at
+ * most 24 small sketches instead of a sort of every sale. Sketches can be exported
+ * with {@link #exportSketches} and merged on another instance.
+ */
+@Service
+public class SalesQuantiles {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesQuantiles.class);
+    private static final long BUCKET_SECONDS = 3600;
+    private static final int BUCKETS = 24;
+    // Key for the series over every category
+    public static final int ALL_CATEGORIES = 0;
+    private static final String ALL_CATEGORIES_LABEL = "All";
+
+    public enum Metric {
+        BILL_VALUE,
+        QUANTITY,
+        CHECKOUT_LATENCY;
+
+        public static Metric parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown metric: " + value
+                        + " (expected bill-value, quantity or checkout-latency)");
+            }
+        }
+    }
+
+    public enum Window {
+        HOUR(1),
+        DAY(BUCKETS);
+
+        private final int buckets;
+
+        Window(int buckets) {
+            this.buckets = buckets;
+        }
+
+        public static Window parse(String value) {
+            try {
+                return value == null ? DAY : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown window: " + value + " (expected hour or day)");
+            }
+        }
+    }
+
+    /**
+     * Percentiles of one series. Bill values are in rupees, latencies in milliseconds.
+     */
+    public record Percentiles(String category, long count, double p50, double p90, double p99) {
+    }
+
+    /**
+     * Bill value and quantity percentiles of one category, taken from the same sales;
+     * {@code quantity} is null only if that series has no data in the window.
+     */
+    public record BillPercentiles(String category, long bills, Percentiles value, Percentiles quantity) {
+    }
+
+    private record SeriesKey(Metric metric, int categoryId) {
+    }
+
+    private final SalesRepository salesRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final double relativeAccuracy;
+    private final Map<SeriesKey, SketchRing> series = new ConcurrentHashMap<>();
+    private final SalesWarmUp loader = new SalesWarmUp();
+
+    public SalesQuantiles(SalesRepository salesRepository, CategoryDictionary categoryDictionary,
+                          @Value("${billing.quantiles.relative-accuracy:0.01}") double relativeAccuracy) {
+        this.salesRepository = salesRepository;
+        this.categoryDictionary = categoryDictionary;
+        this.relativeAccuracy = relativeAccuracy;
+    }
+
+    /**
+     * Loads the last 24 hours of sales a page at a time (checkout latencies start empty).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime from = LocalDateTime.now().minusHours(BUCKETS);
+        int loaded = loader.run(salesRepository, from, this::record);
+        logger.info("Sales quantiles warmed up from {} sales since {}", loaded, from);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (loader.defer(event)) {
+            return;
+        }
+        boolean added = event.type() == SalesChangedEvent.Type.RECORDED;
+        for (Sales sale : event.sales()) {
+            record(sale, added);
+        }
+    }
+
+    public void recordCheckoutLatency(long millis) {
+        ring(new SeriesKey(Metric.CHECKOUT_LATENCY, ALL_CATEGORIES))
+                .update(bucketOf(LocalDateTime.now()), millis, true);
+    }
+
+    /**
+     * Percentiles of {@code metric} for every category that has data in the window,
+     * the all-categories series first.
+     */
+    public List<Percentiles> getPercentiles(Metric metric, Window window) {
+        long last = bucketOf(LocalDateTime.now());
+        List<Percentiles> rows = new ArrayList<>();
+        series.forEach((key, ring) -> {
+            if (key.metric() == metric) {
+                DDSketch merged = ring.merge(last - window.buckets + 1, last);
+                if (!merged.isEmpty()) {
+                    rows.add(percentilesOf(key.categoryId(), merged));
+                }
+            }
+        });
+        rows.sort(Comparator.comparing((Percentiles row) -> !ALL_CATEGORIES_LABEL.equals(row.category()))
+                .thenComparing(Percentiles::category));
+        return rows;
+    }
+
+    /**
+     * Bill value and quantity percentiles per category for the window, one row per
+     * category (the all-categories row first), so the two metrics are matched by
+     * category rather than by list position.
+     */
+    public List<BillPercentiles> getBillPercentiles(Window window) {
+        long last = bucketOf(LocalDateTime.now());
+        long first = last - window.buckets + 1;
+        List<BillPercentiles> rows = new ArrayList<>();
+        series.forEach((key, ring) -> {
+            if (key.metric() == Metric.BILL_VALUE) {
+                DDSketch value = ring.merge(first, last);
+                if (!value.isEmpty()) {
+                    SketchRing quantityRing = series.get(new SeriesKey(Metric.QUANTITY, key.categoryId()));
+                    DDSketch quantity = quantityRing == null ? null : quantityRing.merge(first, last);
+                    rows.add(new BillPercentiles(labelOf(key.categoryId()), value.getCount(),
+                            percentilesOf(key.categoryId(), value),
+                            quantity == null || quantity.isEmpty() ? null : percentilesOf(key.categoryId(), quantity)));
+                }
+            }
+        });
+        rows.sort(Comparator.comparing((BillPercentiles row) -> !ALL_CATEGORIES_LABEL.equals(row.category()))
+                .thenComparing(BillPercentiles::category));
+        return rows;
+    }
+
+    /**
+     * Merged sketch state per category for the window, for merging on another instance.
+     */
+    public Map<String, DDSketch.State> exportSketches(Metric metric, Window window) {
+        long last = bucketOf(LocalDateTime.now());
+        Map<String, DDSketch.State> sketches = new LinkedHashMap<>();
+        series.forEach((key, ring) -> {
+            if (key.metric() == metric) {
+                sketches.put(labelOf(key.categoryId()), ring.merge(last - window.buckets + 1, last).toState());
+            }
+        });
+        return sketches;
+    }
+
+    private void record(Sales sale, boolean added) {
+        if (sale.getSaleDate() == null) {
+            return;
+        }
+        long bucket = bucketOf(sale.getSaleDate());
+        double rupees = Money.toDouble(Money.paiseOrConvert(sale.getTotalAmountPaise(), sale.getTotalAmount()));
+        List<Integer> categories = sale.getCategoryId() == null
+                ? List.of(ALL_CATEGORIES)
+                : List.of(ALL_CATEGORIES, sale.getCategoryId());
+        for (int categoryId : categories) {
+            ring(new SeriesKey(Metric.BILL_VALUE, categoryId)).update(bucket, rupees, added);
+            ring(new SeriesKey(Metric.QUANTITY, categoryId)).update(bucket, sale.getQuantitySold(), added);
+        }
+    }
+
+    private SketchRing ring(SeriesKey key) {
+        return series.computeIfAbsent(key, k -> new SketchRing());
+    }
+
+    private Percentiles percentilesOf(int categoryId, DDSketch sketch) {
+        return new Percentiles(labelOf(categoryId), sketch.getCount(),
+                sketch.quantile(0.5), sketch.quantile(0.9), sketch.quantile(0.99));
+    }
+
+    private String labelOf(int categoryId) {
+        if (categoryId == ALL_CATEGORIES) {
+            return ALL_CATEGORIES_LABEL;
+        }
+        String name = categoryDictionary.nameFor(categoryId);
+        return name == null ? "Category " + categoryId : name;
+    }
+
+    // Local wall-clock hours, matching the LocalDateTime sale dates
+    private static long bucketOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), BUCKET_SECONDS);
+    }
+
+    /**
+     * One sketch per hour for the last {@value #BUCKETS} hours, reused round-robin.
+     */
+    private final class SketchRing {
+        private final long[] bucketIds = new long[BUCKETS];
+        private final DDSketch[] sketches = new DDSketch[BUCKETS];
+
+        private SketchRing() {
+            Arrays.fill(bucketIds, Long.MIN_VALUE);
+        }
+
+        private synchronized void update(long bucket, double value, boolean added) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (bucketIds[slot] != bucket) {
+                if (!added || bucket < bucketIds[slot]) {
+                    return;
+                }
+                bucketIds[slot] = bucket;
+                sketches[slot] = new DDSketch(relativeAccuracy);
+            }
+            if (added) {
+                sketches[slot].add(value);
+            } else {
+                sketches[slot].remove(value);
+            }
+        }
+
+        private synchronized DDSketch merge(long firstBucket, long lastBucket) {
+            DDSketch merged = new DDSketch(relativeAccuracy);
+            for (int slot = 0; slot < BUCKETS; slot++) {
+                if (bucketIds[slot] >= firstBucket && bucketIds[slot] <= lastBucket) {
+                    merged.merge(sketches[slot]);
+                }
+            }
+            return merged;
+        }
+    }
+}
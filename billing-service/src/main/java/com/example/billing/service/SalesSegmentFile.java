@@ -0,0 +1,335 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable, compressed, columnar file holding one month of archived sales.
+ * <pre>
+ * header:    magic "SSEG" | version | yyyymm | rowCount | columnCount      (5 ints)
+ * directory: per column: columnId (int) | offset (long) | compressed length (int) | raw length (int)
+ * blocks:    each column Deflate-compressed; ids and sale times delta-encoded
+ * </pre>
+ * Files are written to a temporary name, forced to disk and atomically renamed (the
+ * directory is forced too, so the rename survives a crash), and are read through a
+ * read-only memory map: only the columns a query needs are inflated.
+ */
+public final class SalesSegmentFile {
+
+    private static final int MAGIC = 0x53534547;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int DIRECTORY_ENTRY_BYTES = Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    // Stand-ins for nulls in primitive columns
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    public static final int NULL_CATEGORY = 0;
+
+    public enum Column {
+        ID,
+        SALE_TIME,
+        ITEM_ID,
+        PRODUCT_ID,
+        ITEM_NAME,
+        CATEGORY,
+        CATEGORY_ID,
+        QUANTITY,
+        UNIT_PRICE,
+        TOTAL_AMOUNT,
+        TOTAL_PAISE
+    }
+
+    private final Path path;
+    private final YearMonth month;
+    private final int rowCount;
+    private final MappedByteBuffer buffer;
+    private final Map<Column, long[]> directory = new EnumMap<>(Column.class);
+
+    private SalesSegmentFile(Path path, YearMonth month, int rowCount, MappedByteBuffer buffer) {
+        this.path = path;
+        this.month = month;
+        this.rowCount = rowCount;
+        this.buffer = buffer;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Writes {@code sales} (one month, ordered by id) as a segment at {@code target}.
+     */
+    public static void write(Path target, YearMonth month, List<Sales> sales) throws IOException {
+        int rows = sales.size();
+        Map<Column, byte[]> raw = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows * Long.BYTES);
+            DataOutputStream out = new DataOutputStream(bytes);
+            long previous = 0;
+            for (Sales sale : sales) {
+                switch (column) {
+                    case ID -> {
+                        out.writeLong(sale.getId() - previous);
+                        previous = sale.getId();
+                    }
+                    case SALE_TIME -> {
+                        long time = sale.getSaleDate().toEpochSecond(ZoneOffset.UTC);
+                        out.writeLong(time - previous);
+                        previous = time;
+                    }
+                    case ITEM_ID -> out.writeLong(sale.getItemId() == null ? NULL_LONG : sale.getItemId());
+                    case PRODUCT_ID -> out.writeLong(sale.getProductId() == null ? NULL_LONG : sale.getProductId());
+                    case ITEM_NAME -> writeString(out, sale.getItemName());
+                    case CATEGORY -> writeString(out, sale.getCategory());
+                    case CATEGORY_ID -> out.writeInt(sale.getCategoryId() == null ? NULL_CATEGORY : sale.getCategoryId());
+                    case QUANTITY -> out.writeInt(sale.getQuantitySold());
+                    case UNIT_PRICE -> out.writeDouble(sale.getUnitPrice() == null ? Double.NaN : sale.getUnitPrice());
+                    case TOTAL_AMOUNT -> out.writeDouble(sale.getTotalAmount());
+                    case TOTAL_PAISE -> out.writeLong(sale.getTotalAmountPaise() == null ? NULL_LONG : sale.getTotalAmountPaise());
+                }
+            }
+            out.flush();
+            raw.put(column, bytes.toByteArray());
+        }
+
+        Map<Column, byte[]> compressed = new EnumMap<>(Column.class);
+        raw.forEach((column, bytes) -> compressed.put(column, deflate(bytes)));
+
+        int columnCount = Column.values().length;
+        long offset = HEADER_BYTES + (long) columnCount * DIRECTORY_ENTRY_BYTES;
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES + columnCount * DIRECTORY_ENTRY_BYTES);
+        head.putInt(MAGIC).putInt(VERSION).putInt(month.getYear() * 100 + month.getMonthValue())
+                .putInt(rows).putInt(columnCount);
+        for (Column column : Column.values()) {
+            head.putInt(column.ordinal()).putLong(offset)
+                    .putInt(compressed.get(column).length).putInt(raw.get(column).length);
+            offset += compressed.get(column).length;
+        }
+        head.flip();
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, head);
+            for (Column column : Column.values()) {
+                writeFully(channel, ByteBuffer.wrap(compressed.get(column)));
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // The rename is only durable once the directory entry is; not every platform can open a directory
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    public static SalesSegmentFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a sales segment: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported sales segment version " + buffer.getInt(4) + ": " + path);
+        }
+        int yearMonth = buffer.getInt(8);
+        SalesSegmentFile segment = new SalesSegmentFile(path, YearMonth.of(yearMonth / 100, yearMonth % 100),
+                buffer.getInt(12), buffer);
+        int columnCount = buffer.getInt(16);
+        for (int i = 0; i < columnCount; i++) {
+            int position = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+            int columnId = buffer.getInt(position);
+            if (columnId < Column.values().length) {
+                segment.directory.put(Column.values()[columnId], new long[] {
+                        buffer.getLong(position + 4), buffer.getInt(position + 12), buffer.getInt(position + 16)});
+            }
+        }
+        return segment;
+    }
+
+    public long[] longColumn(Column column) {
+        ByteBuffer data = inflate(column);
+        long[] values = new long[rowCount];
+        boolean delta = column == Column.ID || column == Column.SALE_TIME;
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long value = data.getLong();
+            values[i] = delta ? previous + value : value;
+            previous = values[i];
+        }
+        return values;
+    }
+
+    public int[] intColumn(Column column) {
+        ByteBuffer data = inflate(column);
+        int[] values = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = data.getInt();
+        }
+        return values;
+    }
+
+    public double[] doubleColumn(Column column) {
+        ByteBuffer data = inflate(column);
+        double[] values = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = data.getDouble();
+        }
+        return values;
+    }
+
+    public String[] stringColumn(Column column) {
+        ByteBuffer data = inflate(column);
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            int length = data.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                data.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Every row as a detached {@link Sales}; for reading an archived month back, not for reports.
+     */
+    public List<Sales> readAll() {
+        long[] ids = longColumn(Column.ID);
+        long[] times = longColumn(Column.SALE_TIME);
+        long[] itemIds = longColumn(Column.ITEM_ID);
+        long[] productIds = longColumn(Column.PRODUCT_ID);
+        String[] itemNames = stringColumn(Column.ITEM_NAME);
+        String[] categories = stringColumn(Column.CATEGORY);
+        int[] categoryIds = intColumn(Column.CATEGORY_ID);
+        int[] quantities = intColumn(Column.QUANTITY);
+        double[] unitPrices = doubleColumn(Column.UNIT_PRICE);
+        double[] totalAmounts = doubleColumn(Column.TOTAL_AMOUNT);
+        long[] totalPaise = longColumn(Column.TOTAL_PAISE);
+        List<Sales> sales = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            sales.add(Sales.builder()
+                    .id(ids[i])
+                    .itemId(itemIds[i] == NULL_LONG ? null : itemIds[i])
+                    .productId(productIds[i] == NULL_LONG ? null : productIds[i])
+                    .itemName(itemNames[i])
+                    .category(categories[i])
+                    .categoryId(categoryIds[i] == NULL_CATEGORY ? null : categoryIds[i])
+                    .quantitySold(quantities[i])
+                    .unitPrice(Double.isNaN(unitPrices[i]) ? null : unitPrices[i])
+                    .totalAmount(totalAmounts[i])
+                    .totalAmountPaise(totalPaise[i] == NULL_LONG ? null : totalPaise[i])
+                    .saleDate(LocalDateTime.ofEpochSecond(times[i], 0, ZoneOffset.UTC))
+                    .build());
+        }
+        return sales;
+    }
+
+    private ByteBuffer inflate(Column column) {
+        long[] entry = directory.get(column);
+        if (entry == null) {
+            throw new IllegalStateException("Column " + column + " missing from " + path);
+        }
+        ByteBuffer compressed = buffer.slice((int) entry[0], (int) entry[1]);
+        byte[] raw = new byte[(int) entry[2]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+                if (read < raw.length && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated column " + column + " in " + path);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt column " + column + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) {
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
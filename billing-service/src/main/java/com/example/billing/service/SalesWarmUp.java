@@ -0,0 +1,101 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Start-up load of an in-memory sales statistic: a keyset scan of the sales table from
+ * a given date, while sales keep being recorded and cancelled. Events that arrive during
+ * the scan are buffered and replayed when it is done: a recorded sale the scan already
+ * loaded is skipped, and a cancellation is only applied to a sale the scan or a replayed
+ * event counted. Ids are matched as a set rather than against the scan position, since
+ * pooled sequence ids are not committed in id order.
+ */
+final class SalesWarmUp {
+
+    private static final int PAGE_SIZE = 1000;
+
+    /**
+     * Applies one sale to the statistic; {@code recorded} is false for a cancellation.
+     */
+    interface Target {
+        void apply(Sales sale, boolean recorded);
+    }
+
+    private final List<SalesChangedEvent> buffered = new ArrayList<>();
+    private volatile boolean ready;
+    private boolean abandoned;
+
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * True if the event was taken over by the warm-up and must not be applied by the
+     * caller: buffered while the scan runs, dropped if the scan failed.
+     */
+    boolean defer(SalesChangedEvent event) {
+        if (ready) {
+            return false;
+        }
+        synchronized (this) {
+            if (ready) {
+                return false;
+            }
+            if (!abandoned) {
+                buffered.add(event);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Loads the sales dated {@code from} onwards into {@code target}, replays the events
+     * buffered meanwhile and marks the statistic ready; returns the rows scanned.
+     */
+    int run(SalesRepository salesRepository, LocalDateTime from, Target target) {
+        Set<Long> counted = new HashSet<>();
+        long afterId = 0;
+        int loaded = 0;
+        List<Sales> page;
+        try {
+            do {
+                page = salesRepository.findBySaleDateGreaterThanEqualAndIdGreaterThanOrderByIdAsc(
+                        from, afterId, PageRequest.of(0, PAGE_SIZE));
+                for (Sales sale : page) {
+                    target.apply(sale, true);
+                    counted.add(sale.getId());
+                    afterId = sale.getId();
+                }
+                loaded += page.size();
+            } while (page.size() == PAGE_SIZE);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                // never ready: stop holding on to events nobody will replay
+                abandoned = true;
+                buffered.clear();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (SalesChangedEvent event : buffered) {
+                boolean recorded = event.type() == SalesChangedEvent.Type.RECORDED;
+                for (Sales sale : event.sales()) {
+                    if (recorded ? counted.add(sale.getId()) : counted.remove(sale.getId())) {
+                        target.apply(sale, recorded);
+                    }
+                }
+            }
+            buffered.clear();
+            ready = true;
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.billing.service;
+
+import com.example.billing.feign.InventoryServiceClient;
+import com.example.billing.feign.ProductServiceClient;
+import com.example.billing.model.Sales;
+import com.example.billing.model.StockSaga;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.repository.StockSagaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Saga log for the stock decrements made by bill generation. Checkout records each
+ * step and, on failure, only marks the saga for compensation. A scheduled worker
+ * then restores stock in the background, so checkout never waits for cleanup.
+ * Pending sagas are stored in the database and resume after a restart.
+ * <p>
+ * Sagas are versioned: every status change is a compare-and-set, so the worker, the
+ * stale-saga recovery and a slow checkout cannot overwrite each other. The worker
+ * commits COMPENSATING before calling the other services and sends one
+ * {@code Idempotency-Key} per saga and service, so a call repeated after a crash or
+ * timeout is applied once.
+ */
+@Service
+public class StockSagaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockSagaService.class);
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    @Autowired
+    private StockSagaRepository stockSagaRepository;
+
+    @Autowired
+    private SalesRepository salesRepository;
+
+    @Autowired
+    private InventoryServiceClient inventoryServiceClient;
+
+    @Autowired
+    private ProductServiceClient productServiceClient;
+
+    @Autowired
+    private BillableItemsView billableItemsView;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Value("${billing.saga.batch-size:100}")
+    private int batchSize;
+
+    @Value("${billing.saga.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${billing.saga.stale-after-seconds:120}")
+    private long staleAfterSeconds;
+
+    public StockSaga begin(Long itemId, int quantity) {
+        return stockSagaRepository.save(new StockSaga(itemId, quantity));
+    }
+
+    /**
+     * Records a step and returns the saga to use for the next one. If stale-saga recovery
+     * aborted the saga meanwhile, the step is still recorded for compensation and
+     * checkout is failed.
+     */
+    public StockSaga recordInventoryDecremented(StockSaga saga) {
+        return recordStep(saga, s -> s.setInventoryDecremented(true));
+    }
+
+    public StockSaga recordProductDecremented(StockSaga saga) {
+        return recordStep(saga, s -> s.setProductDecremented(true));
+    }
+
+    /**
+     * Ends a saga that could not complete. Steps already applied are left for the
+     * compensation worker; a saga with nothing to undo is closed immediately.
+     * A saga that was already aborted by stale-saga recovery, or completed, is left as it
+     * is. The saga is reloaded first, so the decision is made on the stored status.
+     */
+    public StockSaga abort(StockSaga saga, String reason) {
+        StockSaga current = stockSagaRepository.findById(saga.getId()).orElse(saga);
+        StockSaga saved = update(current, s -> s.getStatus() == StockSaga.Status.STARTED && markAborted(s, reason));
+        if (saved.getStatus() == StockSaga.Status.COMPENSATION_PENDING) {
+            logger.info("Saga {} queued for compensation: {}", saved.getId(), reason);
+        }
+        return saved;
+    }
+
+    /**
+     * Queues the restock for a cancelled sale as a saga waiting for compensation. A sale
+     * took stock from both inventory and product, so both legs are recorded and replayed.
+     * Called in the transaction that deletes the sale, so stock is only given back for a
+     * cancellation that committed, once per sale, by the compensation worker.
+     */
+    public StockSaga queueRestock(Long itemId, int quantity, Long saleId, String reason) {
+        StockSaga saga = new StockSaga(itemId, quantity);
+        saga.setInventoryDecremented(true);
+        saga.setProductDecremented(true);
+        saga.setSaleId(saleId);
+        saga.setStatus(StockSaga.Status.COMPENSATION_PENDING);
+        saga.setLastError(truncate(reason));
+        return stockSagaRepository.save(saga);
+    }
+
+    /**
+     * Saves the sale, closes the saga and completes the request's idempotency key (if
+     * any) in one transaction, so a saga is never compensated after its sale was recorded
+     * and a sale never exists without its key. Fails with an optimistic locking error,
+     * and saves no sale, if the saga was aborted meanwhile.
+     */
+    @Transactional
+    public Sales complete(StockSaga saga, Sales sale, String idempotencyKey) {
+        Sales savedSale = salesRepository.save(sale);
+        if (idempotencyKey != null) {
+            idempotencyService.complete(idempotencyKey, savedSale.getId());
+        }
+        // conditional update rather than a save of the caller's copy, which must still read
+        // STARTED for abort() if this transaction fails to commit
+        if (stockSagaRepository.complete(saga.getId(), saga.getVersion(), savedSale.getId(), LocalDateTime.now()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(StockSaga.class, saga.getId());
+        }
+        return savedSale;
+    }
+
+    public long countPendingCompensations() {
+        return stockSagaRepository.countByStatus(StockSaga.Status.COMPENSATION_PENDING)
+                + stockSagaRepository.countByStatus(StockSaga.Status.COMPENSATING);
+    }
+
+    @Scheduled(fixedDelayString = "${billing.saga.compensation-interval-ms:5000}")
+    public void runCompensations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(staleAfterSeconds);
+        recoverStaleSagas(cutoff);
+
+        List<StockSaga> candidates = new ArrayList<>(stockSagaRepository.findByStatusOrderByIdAsc(
+                StockSaga.Status.COMPENSATION_PENDING, PageRequest.of(0, batchSize)));
+        // claimed by a worker that died mid-call; safe to resend since the calls carry keys
+        candidates.addAll(stockSagaRepository.findByStatusAndUpdatedAtBefore(StockSaga.Status.COMPENSATING, cutoff));
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        int compensated = 0;
+        int claimed = 0;
+        for (StockSaga candidate : candidates) {
+            StockSaga saga = claim(candidate);
+            if (saga == null) {
+                continue;
+            }
+            claimed++;
+            if (compensate(saga)) {
+                compensated++;
+            }
+        }
+        logger.info("Compensated {}/{} pending sagas", compensated, claimed);
+    }
+
+    // Sagas still STARTED long after their last step were interrupted (e.g. by a restart)
+    // before the sale was saved; each checkout step saves the saga, so a running one is not stale
+    private void recoverStaleSagas(LocalDateTime cutoff) {
+        List<StockSaga> stale = stockSagaRepository.findByStatusAndUpdatedAtBefore(StockSaga.Status.STARTED, cutoff);
+        for (StockSaga saga : stale) {
+            update(saga, s -> s.getStatus() == StockSaga.Status.STARTED && s.getUpdatedAt().isBefore(cutoff)
+                    && markAborted(s, "Interrupted before the sale was recorded"));
+        }
+    }
+
+    // Commits COMPENSATING before any remote call; null if another writer changed the saga first
+    private StockSaga claim(StockSaga saga) {
+        saga.setStatus(StockSaga.Status.COMPENSATING);
+        // always dirty, so re-claiming a stale COMPENSATING saga also bumps its version
+        saga.setUpdatedAt(LocalDateTime.now());
+        try {
+            return stockSagaRepository.save(saga);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return null;
+        }
+    }
+
+    // Restores each applied step once and records the outcome; true if nothing is left to undo
+    private boolean compensate(StockSaga saga) {
+        Long itemId = saga.getItemId();
+        int quantity = saga.getQuantity();
+        String inventoryError = null;
+        String productError = null;
+        if (saga.isInventoryDecremented()) {
+            inventoryError = call(() -> inventoryServiceClient.addStock(itemId, quantity,
+                    saga.compensationKey("inventory")), "Inventory");
+        }
+        if (saga.isProductDecremented()) {
+            productError = call(() -> productServiceClient.increaseStock(itemId, quantity,
+                    saga.compensationKey("product")), "Product");
+        }
+        boolean inventoryRestored = saga.isInventoryDecremented() && inventoryError == null;
+        boolean productRestored = saga.isProductDecremented() && productError == null;
+        if (inventoryRestored || productRestored) {
+            billableItemsView.applyStockChange(itemId, inventoryRestored ? quantity : 0, productRestored ? quantity : 0);
+        }
+        String error = inventoryError != null ? inventoryError : productError;
+
+        StockSaga saved = update(saga, s -> {
+            if (inventoryRestored) {
+                s.setInventoryDecremented(false);
+            }
+            if (productRestored) {
+                s.setProductDecremented(false);
+            }
+            if (!s.isInventoryDecremented() && !s.isProductDecremented()) {
+                s.setStatus(StockSaga.Status.COMPENSATED);
+            } else if (error == null) {
+                // a late checkout step added work to this saga while it was being compensated
+                s.setStatus(StockSaga.Status.COMPENSATION_PENDING);
+            } else {
+                s.setLastError(truncate(error));
+                s.setAttempts(s.getAttempts() + 1);
+                s.setStatus(s.getAttempts() >= maxAttempts
+                        ? StockSaga.Status.FAILED : StockSaga.Status.COMPENSATION_PENDING);
+            }
+            return true;
+        });
+        if (saved.getStatus() == StockSaga.Status.FAILED) {
+            logger.error("Saga {} gave up after {} attempts - stock needs manual sync for item {}",
+                    saved.getId(), saved.getAttempts(), saved.getItemId());
+        }
+        return saved.getStatus() == StockSaga.Status.COMPENSATED;
+    }
+
+    private String call(Supplier<Object> restore, String service) {
+        try {
+            return restore.get() == null ? service + " restore failed: service unavailable" : null;
+        } catch (Exception e) {
+            return service + " restore failed: " + e.getMessage();
+        }
+    }
+
+    private StockSaga recordStep(StockSaga saga, Consumer<StockSaga> step) {
+        StockSaga saved = update(saga, s -> {
+            step.accept(s);
+            if (s.getStatus() == StockSaga.Status.COMPENSATED) {
+                s.setStatus(StockSaga.Status.COMPENSATION_PENDING);
+            }
+            return true;
+        });
+        if (saved.getStatus() != StockSaga.Status.STARTED) {
+            throw new IllegalStateException("Saga " + saved.getId() + " was aborted while stock was being reduced");
+        }
+        return saved;
+    }
+
+    private boolean markAborted(StockSaga saga, String reason) {
+        boolean needsCompensation = saga.isInventoryDecremented() || saga.isProductDecremented();
+        saga.setStatus(needsCompensation ? StockSaga.Status.COMPENSATION_PENDING : StockSaga.Status.COMPENSATED);
+        saga.setSaleId(null);
+        saga.setLastError(truncate(reason));
+        return true;
+    }
+
+    /**
+     * Applies {@code change} and saves it; if another writer saved the saga first, the
+     * change is re-applied to the latest version. {@code change} returns false when it no
+     * longer applies, and the saga is then returned as it is.
+     */
+    private StockSaga update(StockSaga saga, Predicate<StockSaga> change) {
+        StockSaga current = saga;
+        for (int attempt = 1; ; attempt++) {
+            if (!change.test(current)) {
+                return current;
+            }
+            try {
+                return stockSagaRepository.save(current);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                current = stockSagaRepository.findById(saga.getId()).orElseThrow(() -> e);
+            }
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming best sellers by units sold, without grouping the sales table.
+ * Each window is a ring of time buckets and every bucket holds a Space-Saving
+ * summary of at most {@code capacity} items. A query merges the summaries of the
+ * buckets in the window, so its cost depends on the number of buckets and the
+ * capacity, never on how many sales there are. Counts are over-estimates by at
+ * most the reported error; items with a true count above the window's total
+ * divided by the capacity are guaranteed to be present.
+ * <p>
+ * Buckets use local wall-clock time (sale dates are {@link LocalDateTime}), so daily
+ * buckets start at local midnight.
+ */
+@Service
+public class TopSellersTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopSellersTracker.class);
+
+    public enum Window {
+        // last hour in 5-minute buckets, today in hourly buckets, last 7 days in daily buckets
+        HOUR(300, 12),
+        TODAY(3600, 24),
+        WEEK(86400, 7);
+
+        private final long bucketSeconds;
+        private final int buckets;
+
+        Window(long bucketSeconds, int buckets) {
+            this.bucketSeconds = bucketSeconds;
+            this.buckets = buckets;
+        }
+
+        public static Window parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown window: " + value + " (expected hour, today or week)");
+            }
+        }
+
+        private long bucketOf(LocalDateTime time) {
+            return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+        }
+
+        // First bucket that belongs to the window ending at now
+        private long firstBucket(LocalDateTime now) {
+            if (this == TODAY) {
+                return bucketOf(now.toLocalDate().atStartOfDay());
+            }
+            return bucketOf(now) - buckets + 1;
+        }
+
+        /**
+         * Start of the window ending at {@code now}, aligned to the bucket boundary.
+         */
+        public LocalDateTime start(LocalDateTime now) {
+            return LocalDateTime.ofEpochSecond(firstBucket(now) * bucketSeconds, 0, ZoneOffset.UTC);
+        }
+    }
+
+    public record TopSeller(Long itemId, String itemName, long units, long maxError) {
+    }
+
+    private final SalesRepository salesRepository;
+    private final Map<Window, BucketRing> rings = new HashMap<>();
+    private final SalesWarmUp loader = new SalesWarmUp();
+
+    public TopSellersTracker(SalesRepository salesRepository,
+                             @Value("${billing.top-sellers.capacity:100}") int capacity) {
+        this.salesRepository = salesRepository;
+        for (Window window : Window.values()) {
+            rings.put(window, new BucketRing(window, capacity));
+        }
+    }
+
+    public boolean isReady() {
+        return loader.isReady();
+    }
+
+    /**
+     * Loads the last week of sales into the buckets, a page at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime from = Window.WEEK.start(LocalDateTime.now());
+        int loaded = loader.run(salesRepository, from, (sale, recorded) -> record(sale, recorded ? 1 : -1));
+        logger.info("Top sellers warmed up from {} sales since {}", loaded, from);
+    }
+
+    // After commit, so a rolled back bulk cancellation does not subtract anything
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (loader.defer(event)) {
+            return;
+        }
+        int sign = event.type() == SalesChangedEvent.Type.RECORDED ? 1 : -1;
+        for (Sales sale : event.sales()) {
+            record(sale, sign);
+        }
+    }
+
+    /**
+     * Approximate top {@code limit} items by units sold in the window ending now.
+     */
+    public List<TopSeller> getTopSellers(Window window, int limit) {
+        return rings.get(window).top(LocalDateTime.now(), limit);
+    }
+
+    /**
+     * Exact top {@code limit} items, recomputed from the sales table for the same window.
+     */
+    public List<TopSeller> getExactTopSellers(Window window, int limit) {
+        List<TopSeller> sellers = new ArrayList<>(limit);
+        for (SalesRepository.ItemUnits row : salesRepository.sumUnitsByItemSince(
+                window.start(LocalDateTime.now()), PageRequest.of(0, limit))) {
+            sellers.add(new TopSeller(row.getItemId(), row.getItemName(),
+                    row.getUnits() == null ? 0 : row.getUnits(), 0));
+        }
+        return sellers;
+    }
+
+    private void record(Sales sale, int sign) {
+        // Sales recorded before item ids were stored cannot be attributed
+        if (sale.getItemId() == null || sale.getSaleDate() == null) {
+            return;
+        }
+        long units = (long) sign * sale.getQuantitySold();
+        for (BucketRing ring : rings.values()) {
+            ring.add(sale.getSaleDate(), sale.getItemId(), sale.getItemName(), units);
+        }
+    }
+
+    /**
+     * Fixed number of buckets reused round-robin; a slot is cleared when its bucket
+     * number moves on.
+     */
+    private static final class BucketRing {
+        private final Window window;
+        private final long[] bucketIds;
+        private final SpaceSaving[] summaries;
+
+        private BucketRing(Window window, int capacity) {
+            this.window = window;
+            this.bucketIds = new long[window.buckets];
+            this.summaries = new SpaceSaving[window.buckets];
+            for (int i = 0; i < window.buckets; i++) {
+                bucketIds[i] = Long.MIN_VALUE;
+                summaries[i] = new SpaceSaving(capacity);
+            }
+        }
+
+        private synchronized void add(LocalDateTime time, long itemId, String itemName, long units) {
+            long bucket = window.bucketOf(time);
+            int slot = (int) Math.floorMod(bucket, (long) bucketIds.length);
+            if (bucketIds[slot] != bucket) {
+                if (units < 0 || bucket < bucketIds[slot]) {
+                    // cancelling a sale that has aged out, or a sale older than the ring
+                    return;
+                }
+                bucketIds[slot] = bucket;
+                summaries[slot].clear();
+            }
+            if (units > 0) {
+                summaries[slot].add(itemId, itemName, units);
+            } else {
+                summaries[slot].subtract(itemId, -units);
+            }
+        }
+
+        private synchronized List<TopSeller> top(LocalDateTime now, int limit) {
+            long first = window.firstBucket(now);
+            long last = window.bucketOf(now);
+            List<SpaceSaving> inWindow = new ArrayList<>(summaries.length);
+            for (int slot = 0; slot < bucketIds.length; slot++) {
+                if (bucketIds[slot] >= first && bucketIds[slot] <= last) {
+                    inWindow.add(summaries[slot]);
+                }
+            }
+            return SpaceSaving.mergeTop(inWindow, limit);
+        }
+    }
+
+    /**
+     * Space-Saving summary (Metwally et al.): at most {@code capacity} counters; a new
+     * item replaces the smallest counter and inherits its count as error.
+     */
+    private static final class SpaceSaving {
+        private final int capacity;
+        private final Map<Long, Counter> counters;
+
+        private SpaceSaving(int capacity) {
+            this.capacity = capacity;
+            this.counters = new HashMap<>(capacity * 2);
+        }
+
+        private void add(long itemId, String itemName, long units) {
+            Counter counter = counters.get(itemId);
+            if (counter != null) {
+                counter.count += units;
+                return;
+            }
+            if (counters.size() < capacity) {
+                counters.put(itemId, new Counter(itemId, itemName, units, 0));
+                return;
+            }
+            // linear scan: the capacity is small and replacements are the rare case for real best sellers
+            Counter min = null;
+            for (Counter candidate : counters.values()) {
+                if (min == null || candidate.count < min.count) {
+                    min = candidate;
+                }
+            }
+            counters.remove(min.itemId);
+            counters.put(itemId, new Counter(itemId, itemName, min.count + units, min.count));
+        }
+
+        // Cancellations: only possible for monitored items, otherwise the count was never attributed
+        private void subtract(long itemId, long units) {
+            Counter counter = counters.get(itemId);
+            if (counter != null) {
+                counter.count = Math.max(0, counter.count - units);
+                counter.error = Math.min(counter.error, counter.count);
+            }
+        }
+
+        private void clear() {
+            counters.clear();
+        }
+
+        // Upper bound on the count of any item this summary does not monitor
+        private long floor() {
+            if (counters.size() < capacity) {
+                return 0;
+            }
+            long min = Long.MAX_VALUE;
+            for (Counter counter : counters.values()) {
+                min = Math.min(min, counter.count);
+            }
+            return min;
+        }
+
+        /**
+         * Merges summaries (an item missing from one summary is charged that summary's
+         * floor as both count and error) and returns the largest {@code limit} items.
+         */
+        private static List<TopSeller> mergeTop(List<SpaceSaving> summaries, int limit) {
+            Map<Long, Counter> merged = new HashMap<>();
+            long totalFloor = 0;
+            for (SpaceSaving summary : summaries) {
+                long floor = summary.floor();
+                totalFloor += floor;
+                for (Counter counter : summary.counters.values()) {
+                    Counter total = merged.computeIfAbsent(counter.itemId,
+                            id -> new Counter(id, counter.itemName, 0, 0));
+                    total.count += counter.count - floor;
+                    total.error += counter.error - floor;
+                }
+            }
+            List<TopSeller> sellers = new ArrayList<>(merged.size());
+            for (Counter total : merged.values()) {
+                sellers.add(new TopSeller(total.itemId, total.itemName,
+                        total.count + totalFloor, total.error + totalFloor));
+            }
+            sellers.sort(Comparator.comparingLong(TopSeller::units).reversed()
+                    .thenComparing(TopSeller::itemId));
+            return sellers.size() > limit ? new ArrayList<>(sellers.subList(0, limit)) : sellers;
+        }
+    }
+
+    private static final class Counter {
+        private final long itemId;
+        private final String itemName;
+        private long count;
+        private long error;
+
+        private Counter(long itemId, String itemName, long count, long error) {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
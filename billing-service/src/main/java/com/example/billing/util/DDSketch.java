@@ -0,0 +1,190 @@
+package com.example.billing.util;
+
+import java.util.Arrays;
+
+/**
+ * DDSketch quantile sketch (Masson et al.): positive values are counted in
+ * logarithmic bins of ratio gamma = (1 + a) / (1 - a), so any quantile is returned
+ * within relative error {@code a} of an actual value. Memory depends only on the
+ * spread of the values (at most {@code maxBins} bins; the lowest bins are collapsed
+ * beyond that), and two sketches with the same accuracy merge exactly by adding bins,
+ * which is what makes per-bucket and per-instance sketches combinable.
+ * <p>
+ * Not thread-safe; callers synchronize.
+ */
+public final class DDSketch {
+
+    private static final int DEFAULT_MAX_BINS = 2048;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBins;
+    // counts[i] is the bin with index offset + i
+    private long[] counts = new long[0];
+    private int offset;
+    // values <= 0 (e.g. a zero-millisecond latency)
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Serializable form, for shipping a sketch to another instance and merging it there.
+     */
+    public record State(double relativeAccuracy, long zeroCount, int offset, long[] counts) {
+    }
+
+    public DDSketch(double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_MAX_BINS);
+    }
+
+    public DDSketch(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBins = maxBins;
+    }
+
+    public static DDSketch fromState(State state) {
+        DDSketch sketch = new DDSketch(state.relativeAccuracy());
+        sketch.zeroCount = state.zeroCount();
+        sketch.offset = state.offset();
+        sketch.counts = state.counts().clone();
+        sketch.count = state.zeroCount() + Arrays.stream(state.counts()).sum();
+        return sketch;
+    }
+
+    public State toState() {
+        return new State(relativeAccuracy, zeroCount, offset, counts.clone());
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void add(double value) {
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            int index = indexOf(value);
+            ensureCovers(index);
+            counts[binOf(index)]++;
+        }
+        count++;
+    }
+
+    /**
+     * Removes one occurrence of {@code value} that was added before (e.g. a cancelled sale).
+     * Ignored if its bin is already empty.
+     */
+    public void remove(double value) {
+        if (value <= 0) {
+            if (zeroCount > 0) {
+                zeroCount--;
+                count--;
+            }
+            return;
+        }
+        if (counts.length == 0) {
+            return;
+        }
+        int bin = binOf(indexOf(value));
+        if (bin >= 0 && bin < counts.length && counts[bin] > 0) {
+            counts[bin]--;
+            count--;
+        }
+    }
+
+    public void merge(DDSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        if (other.counts.length > 0) {
+            ensureCovers(other.offset);
+            ensureCovers(other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    counts[binOf(other.offset + i)] += other.counts[i];
+                }
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Value at quantile {@code q} (0..1), or NaN when the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.max(0, Math.min(1, q)) * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return valueOf(offset + i);
+            }
+        }
+        return valueOf(offset + counts.length - 1);
+    }
+
+    private int indexOf(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    // Representative value of a bin: within relativeAccuracy of every value it holds
+    private double valueOf(int index) {
+        return 2 * Math.pow(gamma, index) / (1 + gamma);
+    }
+
+    // Position of a bin index in counts; indexes below the collapsed range land in bin 0
+    private int binOf(int index) {
+        return Math.max(0, index - offset);
+    }
+
+    private void ensureCovers(int index) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = index - 8;
+            return;
+        }
+        int last = offset + counts.length - 1;
+        if (index >= offset && index <= last) {
+            return;
+        }
+        int newFirst = Math.min(offset, index);
+        int newLast = Math.max(last, index);
+        // grow with some headroom on the side that moved
+        if (index < offset) {
+            newFirst = index - 8;
+        } else {
+            newLast = index + 8;
+        }
+        if (newLast - newFirst + 1 > maxBins) {
+            // keep the high bins (the tail the percentiles care about); fold the lowest together
+            newFirst = newLast - maxBins + 1;
+        }
+        long[] grown = new long[newLast - newFirst + 1];
+        for (int i = 0; i < counts.length; i++) {
+            int target = Math.max(0, offset + i - newFirst);
+            grown[target] += counts[i];
+        }
+        counts = grown;
+        offset = newFirst;
+    }
+}
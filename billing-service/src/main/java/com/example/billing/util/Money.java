@@ -0,0 +1,44 @@
+package com.example.billing.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money in minor units (paise, 1/100 rupee) held in a {@code long}.
+ * Totals and rollups are added up as longs, which is exact and allocation-free;
+ * {@link BigDecimal} or {@code double} only appear when reading prices in or
+ * showing amounts out.
+ */
+public final class Money {
+
+    private static final int SCALE = 2;
+    private static final long PAISE_PER_RUPEE = 100;
+
+    private Money() {
+    }
+
+    public static long toPaise(double amount) {
+        return Math.round(amount * PAISE_PER_RUPEE);
+    }
+
+    public static long toPaise(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long paise) {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+
+    public static double toDouble(long paise) {
+        return paise / (double) PAISE_PER_RUPEE;
+    }
+
+    public static long multiply(long paise, int quantity) {
+        return Math.multiplyExact(paise, quantity);
+    }
+
+    // Rows written before the paise column existed only have the double amount
+    public static long paiseOrConvert(Long paise, double amount) {
+        return paise != null ? paise : toPaise(amount);
+    }
+}
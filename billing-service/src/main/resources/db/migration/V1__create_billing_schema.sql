@@ -0,0 +1,92 @@
+-- Schema matching the JPA entities; used by the persistent profile (ddl-auto: validate).
+-- Existing databases created by ddl-auto: update are baselined at this version instead.
+
+CREATE SEQUENCE IF NOT EXISTS sales_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    role VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(500),
+    price NUMERIC(10, 2) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    stock_quantity INTEGER NOT NULL,
+    sku VARCHAR(20),
+    is_active BOOLEAN,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_billing_products_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS sales (
+    id BIGINT NOT NULL PRIMARY KEY,
+    item_id BIGINT,
+    product_id BIGINT,
+    item_name VARCHAR(255),
+    category VARCHAR(255),
+    quantity_sold INTEGER NOT NULL,
+    unit_price DOUBLE PRECISION,
+    total_amount DOUBLE PRECISION NOT NULL,
+    sale_date TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_item_id ON sales (item_id);
+
+CREATE TABLE IF NOT EXISTS bill (
+    bill_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    total DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS bill_item (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    quantity INTEGER NOT NULL,
+    price DOUBLE PRECISION NOT NULL,
+    bill_id INTEGER,
+    CONSTRAINT fk_bill_item_bill FOREIGN KEY (bill_id) REFERENCES bill (bill_id)
+);
+
+CREATE TABLE IF NOT EXISTS bill_items (
+    bill_bill_id INTEGER NOT NULL,
+    items_id INTEGER NOT NULL,
+    CONSTRAINT uk_bill_items_items_id UNIQUE (items_id),
+    CONSTRAINT fk_bill_items_bill FOREIGN KEY (bill_bill_id) REFERENCES bill (bill_id),
+    CONSTRAINT fk_bill_items_item FOREIGN KEY (items_id) REFERENCES bill_item (id)
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_records (
+    idempotency_key VARCHAR(64) NOT NULL PRIMARY KEY,
+    sale_id BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_created_at ON idempotency_records (created_at);
+
+CREATE TABLE IF NOT EXISTS stock_sagas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    inventory_decremented BOOLEAN NOT NULL,
+    product_decremented BOOLEAN NOT NULL,
+    sale_id BIGINT,
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_sagas_status ON stock_sagas (status);
@@ -0,0 +1,7 @@
+-- Report and dashboard queries filter sales by date and category; the product
+-- catalogue is read by category, SKU and the is_active flag
+CREATE INDEX IF NOT EXISTS idx_sales_sale_date ON sales (sale_date);
+CREATE INDEX IF NOT EXISTS idx_sales_category ON sales (category);
+CREATE INDEX IF NOT EXISTS idx_products_category ON products (category);
+CREATE INDEX IF NOT EXISTS idx_products_sku ON products (sku);
+CREATE INDEX IF NOT EXISTS idx_products_is_active ON products (is_active);
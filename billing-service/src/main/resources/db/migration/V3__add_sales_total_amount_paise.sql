@@ -0,0 +1,3 @@
+-- Exact sale totals in paise (BIGINT); reports sum this column instead of the double amount.
+-- Existing rows are filled by SalesAmountBackfill at startup, which also covers the Hibernate-managed profile.
+ALTER TABLE sales ADD COLUMN IF NOT EXISTS total_amount_paise BIGINT;
@@ -0,0 +1,21 @@
+-- Category dictionary: small integer ids for normalized (trimmed, lower case) category names
+CREATE TABLE IF NOT EXISTS categories (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    display_name VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_categories_name UNIQUE (name)
+);
+
+ALTER TABLE sales ADD COLUMN IF NOT EXISTS category_id INTEGER;
+
+-- Existing sales: one entry per distinct normalized name, keeping the first spelling seen
+INSERT INTO categories (name, display_name)
+SELECT LOWER(TRIM(category)), MIN(TRIM(category)) FROM sales
+WHERE category IS NOT NULL AND TRIM(category) <> ''
+GROUP BY LOWER(TRIM(category));
+
+UPDATE sales SET category_id = (SELECT c.id FROM categories c WHERE c.name = LOWER(TRIM(sales.category)))
+WHERE category_id IS NULL AND category IS NOT NULL;
+
+ALTER TABLE sales ADD CONSTRAINT fk_sales_category FOREIGN KEY (category_id) REFERENCES categories (id);
+CREATE INDEX IF NOT EXISTS idx_sales_category_id ON sales (category_id);
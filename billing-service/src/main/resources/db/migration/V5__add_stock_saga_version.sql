@@ -0,0 +1,2 @@
+-- Optimistic locking for stock sagas; existing rows start at version 0
+ALTER TABLE stock_sagas ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
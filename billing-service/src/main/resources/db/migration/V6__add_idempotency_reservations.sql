@@ -0,0 +1,5 @@
+-- Idempotency keys are reserved (PENDING, no sale yet) before the bill runs and completed in the sale's transaction;
+-- the request hash rejects a key reused for a different request
+ALTER TABLE idempotency_records ADD COLUMN IF NOT EXISTS status VARCHAR(16) DEFAULT 'COMPLETED' NOT NULL;
+ALTER TABLE idempotency_records ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+ALTER TABLE idempotency_records ALTER COLUMN sale_id SET NULL;
@@ -0,0 +1,19 @@
+-- Databases baselined from ddl-auto: update may hold rows written while sales and products
+-- used IDENTITY ids. The pooled optimizer hands out (next value - 50, next value], so each
+-- sequence is moved to max(id) + 51 only if its next block could reach an existing id;
+-- an empty table leaves its sequence where it is.
+
+CREATE SEQUENCE IF NOT EXISTS sales_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+ALTER SEQUENCE sales_seq RESTART WITH (
+    SELECT GREATEST(s.base_value, (SELECT COALESCE(MAX(id) + 51, 0) FROM sales))
+    FROM information_schema.sequences s
+    WHERE s.sequence_schema = SCHEMA() AND s.sequence_name = 'SALES_SEQ'
+);
+
+ALTER SEQUENCE products_seq RESTART WITH (
+    SELECT GREATEST(s.base_value, (SELECT COALESCE(MAX(id) + 51, 0) FROM products))
+    FROM information_schema.sequences s
+    WHERE s.sequence_schema = SCHEMA() AND s.sequence_name = 'PRODUCTS_SEQ'
+);
@@ -0,0 +1,121 @@
+package com.example.billing;
+
+import com.example.billing.model.Sales;
+import com.example.billing.model.StockSaga;
+import com.example.billing.repository.SalesRepository;
+import com.example.billing.repository.StockSagaRepository;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The persistent profile: Flyway builds the schema from db/migration and Hibernate only
+ * validates it, so starting this context fails if a migration and an entity disagree.
+ */
+@DataJpaTest
+@ActiveProfiles("persistent")
+class PersistentProfileMigrationTest {
+
+    // Only the JPA slice: the application class also enables Feign and discovery
+    @SpringBootConfiguration
+    @AutoConfigurationPackage(basePackages = "com.example.billing")
+    static class JpaSlice {
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SalesRepository salesRepository;
+
+    @Autowired
+    private StockSagaRepository stockSagaRepository;
+
+    @Test
+    void everyMigrationIsApplied() {
+        MigrationInfo[] all = flyway.info().all();
+
+        assertEquals(0, flyway.info().pending().length);
+        for (MigrationInfo migration : all) {
+            assertEquals(MigrationState.SUCCESS, migration.getState(), migration.getScript());
+        }
+        assertEquals(all[all.length - 1].getVersion(), flyway.info().current().getVersion());
+    }
+
+    @Test
+    void entitiesRoundTripThroughTheMigratedSchema() {
+        Sales sale = salesRepository.saveAndFlush(Sales.builder()
+                .itemId(3L)
+                .itemName("Headphones")
+                .quantitySold(2)
+                .unitPrice(25.0)
+                .totalAmount(50.0)
+                .totalAmountPaise(50_00L)
+                .saleDate(LocalDateTime.now())
+                .build());
+
+        assertTrue(sale.getId() > 0);
+        assertEquals(50_00L, jdbcTemplate.queryForObject(
+                "SELECT total_amount_paise FROM sales WHERE id = ?", Long.class, sale.getId()));
+
+        StockSaga saga = stockSagaRepository.saveAndFlush(new StockSaga(3L, 2));
+        assertEquals(1, stockSagaRepository.complete(saga.getId(), saga.getVersion(), sale.getId(), LocalDateTime.now()));
+        // the saga is no longer STARTED at that version
+        assertEquals(0, stockSagaRepository.complete(saga.getId(), saga.getVersion(), sale.getId(), LocalDateTime.now()));
+        assertEquals("COMPLETED", jdbcTemplate.queryForObject(
+                "SELECT status FROM stock_sagas WHERE id = ?", String.class, saga.getId()));
+    }
+
+    @Test
+    void sequencesMovePastRowsWrittenBeforeTheyExisted() {
+        JdbcTemplate legacy = migrateLegacyDatabase("legacy_ids", false);
+
+        // the pooled optimizer's next block (value - 50, value] starts above the highest id
+        assertEquals(171L, nextValue(legacy, "SALES_SEQ"));
+        assertEquals(58L, nextValue(legacy, "PRODUCTS_SEQ"));
+    }
+
+    @Test
+    void sequencesAlreadyPastTheRowsAreLeftAlone() {
+        JdbcTemplate legacy = migrateLegacyDatabase("sequence_ahead", true);
+
+        assertEquals(1_000L, nextValue(legacy, "SALES_SEQ"));
+    }
+
+    // A database at V6 holding rows with ids from the IDENTITY era, then migrated to the latest version
+    private JdbcTemplate migrateLegacyDatabase(String name, boolean sequenceAhead) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("6").load().migrate();
+        legacy.update("INSERT INTO sales (id, quantity_sold, total_amount) VALUES (120, 1, 10.0)");
+        legacy.update("INSERT INTO products (id, name, price, category, stock_quantity) "
+                + "VALUES (7, 'Pen', 10.00, 'Office', 5)");
+        if (sequenceAhead) {
+            legacy.execute("ALTER SEQUENCE sales_seq RESTART WITH 1000");
+        }
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return legacy;
+    }
+
+    private static long nextValue(JdbcTemplate jdbcTemplate, String sequence) {
+        return jdbcTemplate.queryForObject("SELECT base_value FROM information_schema.sequences "
+                + "WHERE sequence_schema = SCHEMA() AND sequence_name = ?", Long.class, sequence);
+    }
+}
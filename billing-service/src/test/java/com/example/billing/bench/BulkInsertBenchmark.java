@@ -0,0 +1,135 @@
+package com.example.billing.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk insert throughput into an H2 sales table, issuing the statements Hibernate sends
+ * before and after the switch to pooled sequence ids. With IDENTITY every row is its own
+ * round trip that reads back the generated key; with a pooled sequence (allocationSize
+ * 50) one sequence call covers 50 rows and the inserts go out as JDBC batches of 50.
+ * Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(BulkInsertBenchmark.ROWS)
+public class BulkInsertBenchmark {
+
+    static final int ROWS = 5000;
+    private static final int BATCH_SIZE = 50;
+
+    private static final String COLUMNS = "item_id, item_name, category, quantity_sold, unit_price, "
+            + "total_amount, total_amount_paise, sale_date";
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bulk_insert;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sales_identity (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "item_id BIGINT, item_name VARCHAR(255), category VARCHAR(255), quantity_sold INTEGER NOT NULL, "
+                    + "unit_price DOUBLE PRECISION, total_amount DOUBLE PRECISION NOT NULL, total_amount_paise BIGINT, "
+                    + "sale_date TIMESTAMP(6))");
+            statement.execute("CREATE TABLE sales_pooled (id BIGINT NOT NULL PRIMARY KEY, "
+                    + "item_id BIGINT, item_name VARCHAR(255), category VARCHAR(255), quantity_sold INTEGER NOT NULL, "
+                    + "unit_price DOUBLE PRECISION, total_amount DOUBLE PRECISION NOT NULL, total_amount_paise BIGINT, "
+                    + "sale_date TIMESTAMP(6))");
+            statement.execute("CREATE SEQUENCE sales_pooled_seq START WITH 1 INCREMENT BY " + BATCH_SIZE);
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE sales_identity");
+            statement.execute("TRUNCATE TABLE sales_pooled");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Benchmark
+    public void identityRowByRow() throws Exception {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO sales_identity (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    @Benchmark
+    public void pooledSequenceBatched() throws Exception {
+        try (PreparedStatement nextValue = connection.prepareStatement("SELECT NEXT VALUE FOR sales_pooled_seq");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO sales_pooled (" + COLUMNS + ", id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long nextId = 0;
+            long hi = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (nextId > hi) {
+                    try (ResultSet value = nextValue.executeQuery()) {
+                        value.next();
+                        hi = value.getLong(1);
+                    }
+                    nextId = hi - BATCH_SIZE + 1;
+                }
+                bind(insert, i);
+                insert.setLong(9, nextId++);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private void bind(PreparedStatement insert, int row) throws Exception {
+        long totalPaise = 1999L * (1 + row % 5);
+        insert.setLong(1, row % 1000);
+        insert.setString(2, "Item " + row % 1000);
+        insert.setString(3, "Category " + row % 16);
+        insert.setInt(4, 1 + row % 5);
+        insert.setDouble(5, 19.99);
+        insert.setDouble(6, totalPaise / 100.0);
+        insert.setLong(7, totalPaise);
+        insert.setTimestamp(8, Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.billing.bench;
+
+import com.example.billing.feign.InventoryItemDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding an inventory catalog response into the typed {@link InventoryItemDto} against
+ * the old {@code List<Map<String, Object>>} model, including the casts and id parsing
+ * callers did on each map. Scores are per decoded item; run with {@code -prof gc} and
+ * compare {@code gc.alloc.rate.norm} for the allocation per item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(FeignDecodeBenchmark.ITEMS)
+public class FeignDecodeBenchmark {
+
+    static final int ITEMS = 1000;
+
+    private byte[] json;
+    private ObjectReader mapReader;
+    private ObjectReader dtoReader;
+    private ObjectReader blackbirdDtoReader;
+
+    @Setup
+    public void setUp() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        List<InventoryItemDto> items = new ArrayList<>(ITEMS);
+        for (int i = 1; i <= ITEMS; i++) {
+            items.add(new InventoryItemDto((long) i, "Item " + i, "Category " + random.nextInt(16),
+                    random.nextInt(1, 100_000) / 100.0, random.nextInt(500)));
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        json = mapper.writeValueAsBytes(items);
+
+        mapReader = mapper.readerFor(new TypeReference<List<Map<String, Object>>>() {});
+        dtoReader = mapper.readerFor(new TypeReference<List<InventoryItemDto>>() {});
+        // as configured for the Feign decoder by JacksonConfig
+        blackbirdDtoReader = new ObjectMapper().registerModule(new BlackbirdModule())
+                .readerFor(new TypeReference<List<InventoryItemDto>>() {});
+    }
+
+    @Benchmark
+    public void mapModel(Blackhole blackhole) throws Exception {
+        List<Map<String, Object>> items = mapReader.readValue(json);
+        for (Map<String, Object> item : items) {
+            blackhole.consume(Long.parseLong(item.get("id").toString()));
+            blackhole.consume((String) item.get("name"));
+            blackhole.consume(((Number) item.get("price")).doubleValue());
+            blackhole.consume((int) (Integer) item.get("quantity"));
+        }
+    }
+
+    @Benchmark
+    public void typedDto(Blackhole blackhole) throws Exception {
+        consume(dtoReader.readValue(json), blackhole);
+    }
+
+    @Benchmark
+    public void typedDtoBlackbird(Blackhole blackhole) throws Exception {
+        consume(blackbirdDtoReader.readValue(json), blackhole);
+    }
+
+    private void consume(List<InventoryItemDto> items, Blackhole blackhole) {
+        for (InventoryItemDto item : items) {
+            blackhole.consume(item.getId());
+            blackhole.consume(item.getName());
+            blackhole.consume(item.getPrice());
+            blackhole.consume(item.getQuantity());
+        }
+    }
+}
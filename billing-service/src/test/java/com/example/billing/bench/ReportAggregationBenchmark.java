@@ -0,0 +1,122 @@
+package com.example.billing.bench;
+
+import com.example.billing.model.Sales;
+import com.example.billing.service.BillingService;
+import com.example.billing.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report aggregation over a list of sales: the revenue total and the per-category
+ * rollup, summed as doubles or BigDecimal (the old model) against long paise.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportAggregationBenchmark {
+
+    private static final int CATEGORIES = 16;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private List<Sales> sales;
+    private String[] categoryNames;
+    private BillingService billingService;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        categoryNames = new String[CATEGORIES];
+        for (int id = 0; id < CATEGORIES; id++) {
+            categoryNames[id] = "Category " + id;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        sales = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int categoryId = random.nextInt(CATEGORIES);
+            int quantity = 1 + random.nextInt(5);
+            long unitPaise = 100 + random.nextInt(500_000);
+            long totalPaise = Money.multiply(unitPaise, quantity);
+            sales.add(Sales.builder()
+                    .id((long) i + 1)
+                    .itemId((long) random.nextInt(10_000))
+                    .category(categoryNames[categoryId])
+                    .categoryId(categoryId)
+                    .quantitySold(quantity)
+                    .unitPrice(Money.toDouble(unitPaise))
+                    .totalAmount(Money.toDouble(totalPaise))
+                    .totalAmountPaise(totalPaise)
+                    .saleDate(now.minusMinutes(i))
+                    .build());
+        }
+        billingService = new BillingService();
+    }
+
+    @Benchmark
+    public double totalAsDouble() {
+        double total = 0;
+        for (Sales sale : sales) {
+            total += sale.getTotalAmount();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal totalAsBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Sales sale : sales) {
+            total = total.add(BigDecimal.valueOf(sale.getTotalAmount()));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal totalAsPaise() {
+        return billingService.sumRevenue(sales);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> byCategoryAsBigDecimal() {
+        Map<String, BigDecimal> report = new HashMap<>();
+        for (Sales sale : sales) {
+            report.merge(sale.getCategory(), BigDecimal.valueOf(sale.getTotalAmount()), BigDecimal::add);
+        }
+        return report;
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> byCategoryAsPaise() {
+        long[] paiseByCategory = new long[CATEGORIES];
+        for (Sales sale : sales) {
+            paiseByCategory[sale.getCategoryId()] += Money.paiseOrConvert(sale.getTotalAmountPaise(), sale.getTotalAmount());
+        }
+        Map<String, BigDecimal> report = new HashMap<>();
+        for (int id = 0; id < CATEGORIES; id++) {
+            report.put(categoryNames[id], Money.toBigDecimal(paiseByCategory[id]));
+        }
+        return report;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.billing.bench;
+
+import com.example.billing.feign.InventoryItemDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a 50k-item {@code /api/items} catalog response as JSON and as
+ * Smile, the two formats the Feign clients negotiate. The payload size of each format
+ * is printed once per fork, ahead of the scores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final int ITEMS = 50_000;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    private List<InventoryItemDto> catalog;
+    private byte[] payload;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        catalog = new ArrayList<>(ITEMS);
+        for (int i = 1; i <= ITEMS; i++) {
+            catalog.add(new InventoryItemDto((long) i, "Item " + i, "Category " + random.nextInt(16),
+                    random.nextInt(1, 100_000) / 100.0, random.nextInt(500)));
+        }
+        ObjectMapper mapper = "smile".equals(format) ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+        mapper.registerModule(new BlackbirdModule());
+        writer = mapper.writerFor(new TypeReference<List<InventoryItemDto>>() {});
+        reader = mapper.readerFor(new TypeReference<List<InventoryItemDto>>() {});
+        payload = writer.writeValueAsBytes(catalog);
+        System.out.printf("%n%s payload for %d items: %d bytes%n", format, ITEMS, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public List<InventoryItemDto> decode() throws Exception {
+        return reader.readValue(payload);
+    }
+}
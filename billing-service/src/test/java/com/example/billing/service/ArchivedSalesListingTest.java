@@ -0,0 +1,121 @@
+package com.example.billing.service;
+
+import com.example.billing.controller.BillingController;
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A sale moved to an archive segment must still show up in the sales listings and exports.
+ */
+class ArchivedSalesListingTest {
+
+    @TempDir
+    Path archiveDir;
+
+    private final SalesRepository salesRepository = mock(SalesRepository.class);
+    private SalesArchive salesArchive;
+    private BillingService billingService;
+    private Sales archived;
+    private Sales live;
+    private YearMonth archivedMonth;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        salesArchive = new SalesArchive(salesRepository, mock(ApplicationEventPublisher.class),
+                mock(PlatformTransactionManager.class), archiveDir.toString(), 3);
+        billingService = new BillingService();
+        ReflectionTestUtils.setField(billingService, "salesRepository", salesRepository);
+        ReflectionTestUtils.setField(billingService, "salesArchive", salesArchive);
+
+        LocalDateTime oldDate = LocalDateTime.now().minusMonths(6).withDayOfMonth(10).withNano(0);
+        archivedMonth = YearMonth.from(oldDate);
+        archived = sale(7L, oldDate, 12_50L);
+        live = sale(900L, LocalDateTime.now().withNano(0), 99_00L);
+
+        // the month scan finds the old sale once; after the delete the table no longer has it
+        when(salesRepository.findBySaleDateGreaterThanEqualAndSaleDateLessThanAndIdGreaterThanOrderByIdAsc(
+                any(), any(), any(), any())).thenReturn(List.of(archived), List.of());
+        when(salesRepository.deleteByIdIn(anyCollection())).thenReturn(1);
+        when(salesRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(live));
+        when(salesRepository.findAllByOrderBySaleDateDescIdDesc(any())).thenReturn(List.of(live));
+
+        salesArchive.open();
+        assertEquals(1, salesArchive.archiveMonth(archivedMonth));
+    }
+
+    @Test
+    void allSalesUnionArchiveAndLiveTable() {
+        List<Sales> sales = billingService.getAllSales();
+
+        assertEquals(List.of(7L, 900L), sales.stream().map(Sales::getId).toList());
+        assertEquals(12_50L, sales.get(0).getTotalAmountPaise());
+        assertEquals(archived.getSaleDate(), sales.get(0).getSaleDate());
+    }
+
+    @Test
+    void recentSalesAreToppedUpFromTheArchive() {
+        List<Sales> sales = billingService.getRecentSales(10);
+
+        assertEquals(List.of(900L, 7L), sales.stream().map(Sales::getId).toList());
+    }
+
+    @Test
+    void monthExportReadsTheArchivedSale() {
+        List<Sales> sales = billingService.getSalesForMonths(archivedMonth, archivedMonth);
+
+        assertEquals(List.of(7L), sales.stream().map(Sales::getId).toList());
+    }
+
+    @Test
+    void salesPageAndExportViewListTheArchivedSale() {
+        BillingController controller = new BillingController();
+        ReflectionTestUtils.setField(controller, "billingService", billingService);
+
+        ExtendedModelMap listing = new ExtendedModelMap();
+        assertEquals("sales", controller.getAllSales(null, null, null, null, listing));
+        ExtendedModelMap export = new ExtendedModelMap();
+        assertEquals("sales", controller.getAllSales(null, null, "true", null, export));
+
+        for (ExtendedModelMap model : List.of(listing, export)) {
+            @SuppressWarnings("unchecked")
+            List<Sales> sales = (List<Sales>) model.get("sales");
+            assertTrue(sales.stream().anyMatch(sale -> sale.getId() == 7L), "archived sale listed");
+            assertEquals(2, model.get("totalTransactions"));
+        }
+    }
+
+    private static Sales sale(Long id, LocalDateTime date, long paise) {
+        return Sales.builder()
+                .id(id)
+                .itemId(1L)
+                .itemName("Laptop")
+                .category("Electronics")
+                .categoryId(1)
+                .quantitySold(1)
+                .unitPrice(paise / 100.0)
+                .totalAmount(paise / 100.0)
+                .totalAmountPaise(paise)
+                .saleDate(date)
+                .build();
+    }
+}
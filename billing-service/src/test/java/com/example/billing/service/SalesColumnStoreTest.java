@@ -0,0 +1,159 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class SalesColumnStoreTest {
+
+    // rows per chunk in SalesColumnStore
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final SalesColumnStore.Filter ALL = new SalesColumnStore.Filter(null, null, null, null, null);
+
+    private SalesColumnStore store;
+    private final LocalDateTime start = LocalDateTime.now().minusDays(20).withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        store = new SalesColumnStore(mock(SalesRepository.class));
+        ReflectionTestUtils.setField(store, "retentionDays", 30);
+        // an empty table: the warm-up only switches the store to ready
+        store.warmUp();
+    }
+
+    @Test
+    void appendsRollOverIntoANewChunk() {
+        int rows = CHUNK_ROWS + 10;
+        record(rows, 0);
+
+        SalesColumnStore.Result all = store.query(ALL);
+
+        assertEquals(rows, store.size());
+        assertEquals(rows, all.rowsScanned());
+        assertEquals(rows, all.bills());
+        assertEquals(unitsOf(0, rows), all.units());
+        assertEquals(paiseOf(0, rows), all.paise());
+
+        // a time range across the chunk boundary: one second per row
+        int from = CHUNK_ROWS - 5;
+        int to = CHUNK_ROWS + 4;
+        SalesColumnStore.Result across = store.query(new SalesColumnStore.Filter(
+                null, start.plusSeconds(from), start.plusSeconds(to), null, null));
+        assertEquals(to - from + 1, across.bills());
+        assertEquals(unitsOf(from, to + 1), across.units());
+        assertEquals(paiseOf(from, to + 1), across.paise());
+    }
+
+    @Test
+    void cancelledRowsAreTombstonedInEveryChunk() {
+        List<Sales> sales = record(CHUNK_ROWS + 10, 0);
+        Sales first = sales.get(3);
+        Sales tail = sales.get(CHUNK_ROWS + 2);
+
+        store.onSalesChanged(SalesChangedEvent.cancelled(List.of(first, tail)));
+        SalesColumnStore.Result all = store.query(ALL);
+
+        // tombstoned rows are still scanned but never match
+        assertEquals(CHUNK_ROWS + 10, all.rowsScanned());
+        assertEquals(CHUNK_ROWS + 8, all.bills());
+        assertEquals(unitsOf(0, CHUNK_ROWS + 10) - first.getQuantitySold() - tail.getQuantitySold(), all.units());
+        assertEquals(paiseOf(0, CHUNK_ROWS + 10) - first.getTotalAmountPaise() - tail.getTotalAmountPaise(),
+                all.paise());
+    }
+
+    @Test
+    void cancellingAnUnknownSaleChangesNothing() {
+        record(100, 0);
+        Sales unknown = sale(999_999L, start, 1, 2);
+
+        store.onSalesChanged(SalesChangedEvent.cancelled(List.of(unknown)));
+
+        assertEquals(100, store.query(ALL).bills());
+    }
+
+    @Test
+    void filtersByCategoryAndQuantityWithPerCategoryTotals() {
+        List<Sales> sales = record(1_000, 0);
+
+        SalesColumnStore.Result result = store.query(new SalesColumnStore.Filter(2, null, null, 2, 3));
+
+        long bills = 0;
+        long units = 0;
+        for (Sales sale : sales) {
+            if (sale.getCategoryId() == 2 && sale.getQuantitySold() >= 2 && sale.getQuantitySold() <= 3) {
+                bills++;
+                units += sale.getQuantitySold();
+            }
+        }
+        assertEquals(bills, result.bills());
+        assertEquals(units, result.units());
+        assertEquals(bills, result.billsByCategory()[2]);
+        assertEquals(0, result.billsByCategory()[1]);
+    }
+
+    @Test
+    void evictionDropsWholeChunksPastRetention() {
+        // a full chunk of sales older than the 30-day retention, then a few recent ones
+        List<Sales> old = new ArrayList<>();
+        LocalDateTime expired = LocalDateTime.now().minusDays(60);
+        for (int i = 0; i < CHUNK_ROWS; i++) {
+            old.add(sale(i + 1L, expired.plusSeconds(i), 1, 2));
+        }
+        old.forEach(sale -> store.onSalesChanged(SalesChangedEvent.recorded(sale)));
+        record(5, CHUNK_ROWS);
+
+        store.evict();
+
+        assertEquals(5, store.size());
+        assertEquals(5, store.query(ALL).bills());
+    }
+
+    // Records count sales with ids offset + 1..., one second apart from the start time
+    private List<Sales> record(int count, int offset) {
+        List<Sales> sales = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            Sales sale = sale(i + 1L, start.plusSeconds(i), 1 + i % 4, i % 5);
+            store.onSalesChanged(SalesChangedEvent.recorded(sale));
+            sales.add(sale);
+        }
+        return sales;
+    }
+
+    private static Sales sale(long id, LocalDateTime saleDate, int quantity, int categoryId) {
+        long paise = 150L * quantity + id % 7;
+        return Sales.builder()
+                .id(id)
+                .itemId(id % 50)
+                .categoryId(categoryId)
+                .quantitySold(quantity)
+                .totalAmount(paise / 100.0)
+                .totalAmountPaise(paise)
+                .saleDate(saleDate)
+                .build();
+    }
+
+    private static long unitsOf(int from, int to) {
+        long units = 0;
+        for (int i = from; i < to; i++) {
+            units += 1 + i % 4;
+        }
+        return units;
+    }
+
+    private static long paiseOf(int from, int to) {
+        long paise = 0;
+        for (int i = from; i < to; i++) {
+            paise += 150L * (1 + i % 4) + (i + 1L) % 7;
+        }
+        return paise;
+    }
+}
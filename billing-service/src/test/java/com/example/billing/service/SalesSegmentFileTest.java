@@ -0,0 +1,160 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesSegmentFileTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+    private static final int HEADER_BYTES = 20;
+    private static final int DIRECTORY_ENTRY_BYTES = 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripKeepsEveryFieldIncludingNulls() throws IOException {
+        List<Sales> sales = List.of(
+                sale(10L, MONTH.atDay(1).atTime(0, 0, 1), 3L, 4L, "Laptop", "Electronics", 2, 5, 499.99, 2_499_95L),
+                // a legacy row: no item, product, unit price, category id or paise
+                sale(11L, MONTH.atDay(2).atTime(9, 30), null, null, null, null, null, 1, null, null),
+                sale(250L, MONTH.atEndOfMonth().atTime(23, 59, 59), 7L, 7L, "Café crème ☕", "Food & Drink", 9, 2,
+                        3.5, 7_00L));
+        Path path = dir.resolve("sales-2024-03.seg");
+
+        SalesSegmentFile.write(path, MONTH, sales);
+        SalesSegmentFile segment = SalesSegmentFile.open(path);
+
+        assertEquals(MONTH, segment.getMonth());
+        assertEquals(3, segment.getRowCount());
+        assertEquals(Files.size(path), segment.getSizeBytes());
+        assertEquals(sales, segment.readAll());
+        assertFalse(Files.exists(dir.resolve("sales-2024-03.seg.tmp")));
+    }
+
+    @Test
+    void deltaEncodedColumnsDecodeToAbsoluteValues() throws IOException {
+        List<Sales> sales = new ArrayList<>();
+        LocalDateTime time = MONTH.atDay(5).atStartOfDay();
+        for (int i = 0; i < 1_000; i++) {
+            sales.add(sale(1_000_000L + i * 3L, time.plusMinutes(i * 7L), 1L, 1L, "Item", "Books", 4, 1, 1.0, 100L));
+        }
+        Path path = dir.resolve("sales.seg");
+        SalesSegmentFile.write(path, MONTH, sales);
+
+        SalesSegmentFile segment = SalesSegmentFile.open(path);
+
+        long[] ids = segment.longColumn(SalesSegmentFile.Column.ID);
+        long[] times = segment.longColumn(SalesSegmentFile.Column.SALE_TIME);
+        for (int i = 0; i < sales.size(); i++) {
+            assertEquals(sales.get(i).getId(), ids[i]);
+            assertEquals(sales.get(i).getSaleDate().toEpochSecond(ZoneOffset.UTC), times[i]);
+        }
+        assertEquals(4, segment.intColumn(SalesSegmentFile.Column.CATEGORY_ID)[999]);
+    }
+
+    @Test
+    void headerAndDirectoryDescribeContiguousBlocks() throws IOException {
+        Path path = dir.resolve("sales.seg");
+        SalesSegmentFile.write(path, MONTH, List.of(
+                sale(1L, MONTH.atDay(1).atStartOfDay(), 1L, 1L, "A", "B", 1, 1, 1.0, 100L)));
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        assertArrayEquals("SSEG".getBytes(), new byte[] {file.get(0), file.get(1), file.get(2), file.get(3)});
+        assertEquals(1, file.getInt(4));
+        assertEquals(202403, file.getInt(8));
+        assertEquals(1, file.getInt(12));
+        int columns = file.getInt(16);
+        assertEquals(SalesSegmentFile.Column.values().length, columns);
+        long expectedOffset = HEADER_BYTES + (long) columns * DIRECTORY_ENTRY_BYTES;
+        for (int i = 0; i < columns; i++) {
+            int entry = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+            assertEquals(i, file.getInt(entry));
+            assertEquals(expectedOffset, file.getLong(entry + 4));
+            expectedOffset += file.getInt(entry + 12);
+        }
+        assertEquals(file.capacity(), expectedOffset);
+    }
+
+    @Test
+    void emptyMonthWritesAnEmptySegment() throws IOException {
+        Path path = dir.resolve("empty.seg");
+        SalesSegmentFile.write(path, MONTH, List.of());
+
+        SalesSegmentFile segment = SalesSegmentFile.open(path);
+
+        assertEquals(0, segment.getRowCount());
+        assertTrue(segment.readAll().isEmpty());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegmentsOrOfAnotherVersion() throws IOException {
+        Path garbage = dir.resolve("garbage.seg");
+        Files.write(garbage, "not a segment at all".getBytes());
+        assertThrows(IOException.class, () -> SalesSegmentFile.open(garbage));
+
+        Path future = dir.resolve("future.seg");
+        SalesSegmentFile.write(future, MONTH, List.of());
+        overwrite(future, 4, ByteBuffer.allocate(4).putInt(0, 2));
+        assertThrows(IOException.class, () -> SalesSegmentFile.open(future));
+    }
+
+    @Test
+    void corruptColumnFailsOnlyWhenThatColumnIsRead() throws IOException {
+        Path path = dir.resolve("sales.seg");
+        SalesSegmentFile.write(path, MONTH, List.of(
+                sale(1L, MONTH.atDay(1).atStartOfDay(), 1L, 1L, "A", "B", 1, 6, 1.0, 100L)));
+        // zero the zlib header of the QUANTITY block
+        int entry = HEADER_BYTES + SalesSegmentFile.Column.QUANTITY.ordinal() * DIRECTORY_ENTRY_BYTES;
+        long offset = ByteBuffer.wrap(Files.readAllBytes(path)).getLong(entry + 4);
+        overwrite(path, offset, ByteBuffer.allocate(2));
+
+        SalesSegmentFile segment = SalesSegmentFile.open(path);
+
+        assertThrows(IllegalStateException.class, () -> segment.intColumn(SalesSegmentFile.Column.QUANTITY));
+        assertEquals(100L, segment.longColumn(SalesSegmentFile.Column.TOTAL_PAISE)[0]);
+    }
+
+    private static void overwrite(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static Sales sale(Long id, LocalDateTime saleDate, Long itemId, Long productId, String itemName,
+                              String category, Integer categoryId, int quantity, Double unitPrice, Long paise) {
+        return Sales.builder()
+                .id(id)
+                .saleDate(saleDate)
+                .itemId(itemId)
+                .productId(productId)
+                .itemName(itemName)
+                .category(category)
+                .categoryId(categoryId)
+                .quantitySold(quantity)
+                .unitPrice(unitPrice)
+                .totalAmount(paise == null ? quantity * 2.5 : paise / 100.0)
+                .totalAmountPaise(paise)
+                .build();
+    }
+}
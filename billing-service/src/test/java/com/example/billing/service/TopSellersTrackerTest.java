@@ -0,0 +1,130 @@
+package com.example.billing.service;
+
+import com.example.billing.model.Sales;
+import com.example.billing.repository.SalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Space-Saving guarantees of the top sellers tracker: reported counts never
+ * under-estimate, over-estimate by at most the reported error, that error stays
+ * within total / capacity, and every item above that share is reported.
+ */
+class TopSellersTrackerTest {
+
+    private static final int CAPACITY = 10;
+
+    private TopSellersTracker tracker;
+    private long nextSaleId;
+
+    @BeforeEach
+    void setUp() {
+        // an empty table: the warm-up only switches the tracker to ready
+        tracker = new TopSellersTracker(mock(SalesRepository.class), CAPACITY);
+        tracker.warmUp();
+    }
+
+    @Test
+    void countsAreExactWhileItemsFitTheCapacity() {
+        LocalDateTime now = LocalDateTime.now();
+        record(1L, 5, now);
+        record(2L, 3, now);
+        record(1L, 2, now);
+
+        List<TopSellersTracker.TopSeller> top = tracker.getTopSellers(TopSellersTracker.Window.HOUR, 5);
+
+        assertEquals(2, top.size());
+        assertEquals(1L, top.get(0).itemId());
+        assertEquals(7, top.get(0).units());
+        assertEquals(0, top.get(0).maxError());
+        assertEquals(2L, top.get(1).itemId());
+        assertEquals(3, top.get(1).units());
+    }
+
+    @Test
+    void skewedStreamStaysWithinTheErrorBound() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        long total = 0;
+        for (int i = 0; i < 5_000; i++) {
+            // three heavy hitters take about 60% of the units, the rest spread over 200 items
+            long itemId = random.nextInt(10) < 6 ? 1 + random.nextInt(3) : 100 + random.nextInt(200);
+            int quantity = 1 + random.nextInt(3);
+            record(itemId, quantity, now);
+            exact.merge(itemId, (long) quantity, Long::sum);
+            total += quantity;
+        }
+
+        List<TopSellersTracker.TopSeller> top = tracker.getTopSellers(TopSellersTracker.Window.HOUR, CAPACITY * 4);
+
+        long bound = total / CAPACITY;
+        for (TopSellersTracker.TopSeller seller : top) {
+            long actual = exact.getOrDefault(seller.itemId(), 0L);
+            assertTrue(seller.units() >= actual, "under-estimated item " + seller.itemId());
+            assertTrue(seller.units() - seller.maxError() <= actual, "error too small for item " + seller.itemId());
+            // a window can straddle two buckets, each adding at most its own total / capacity
+            assertTrue(seller.maxError() <= bound + 1, "error above total / capacity for item " + seller.itemId());
+        }
+        for (Map.Entry<Long, Long> item : exact.entrySet()) {
+            if (item.getValue() > bound) {
+                assertTrue(top.stream().anyMatch(seller -> seller.itemId().equals(item.getKey())),
+                        "heavy hitter " + item.getKey() + " missing");
+            }
+        }
+        List<Long> leaders = top.subList(0, 3).stream().map(TopSellersTracker.TopSeller::itemId).sorted().toList();
+        assertEquals(List.of(1L, 2L, 3L), leaders);
+    }
+
+    @Test
+    void cancellationSubtractsFromTheItem() {
+        LocalDateTime now = LocalDateTime.now();
+        record(1L, 5, now);
+        Sales sale = record(2L, 4, now);
+
+        tracker.onSalesChanged(SalesChangedEvent.cancelled(List.of(sale)));
+
+        List<TopSellersTracker.TopSeller> top = tracker.getTopSellers(TopSellersTracker.Window.HOUR, 5);
+        assertEquals(1L, top.get(0).itemId());
+        assertEquals(0, top.stream().filter(seller -> seller.itemId() == 2L).findFirst().orElseThrow().units());
+    }
+
+    @Test
+    void weekMergesDailyBucketsAndDropsOlderSales() {
+        LocalDateTime now = LocalDateTime.now();
+        record(1L, 4, now.minusDays(9));
+        record(1L, 2, now.minusDays(3));
+        record(2L, 1, now.minusDays(1));
+        record(1L, 3, now);
+
+        List<TopSellersTracker.TopSeller> top = tracker.getTopSellers(TopSellersTracker.Window.WEEK, 5);
+
+        assertEquals(2, top.size());
+        assertEquals(1L, top.get(0).itemId());
+        assertEquals(5, top.get(0).units());
+        assertEquals(0, top.get(0).maxError());
+        assertEquals(1, top.get(1).units());
+    }
+
+    private Sales record(long itemId, int quantity, LocalDateTime saleDate) {
+        Sales sale = Sales.builder()
+                .id(++nextSaleId)
+                .itemId(itemId)
+                .itemName("Item " + itemId)
+                .quantitySold(quantity)
+                .saleDate(saleDate)
+                .build();
+        tracker.onSalesChanged(SalesChangedEvent.recorded(sale));
+        return sale;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.billing.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DDSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.9, 0.95, 0.99, 1};
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        double[] values = lognormal(20_000, 1);
+        DDSketch sketch = new DDSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertEquals(values.length, sketch.getCount());
+        assertAccurate(sketch, values, QUANTILES);
+    }
+
+    @Test
+    void mergedSketchMatchesOneBuiltFromAllValues() {
+        double[] values = lognormal(10_000, 2);
+        DDSketch all = new DDSketch(ACCURACY);
+        DDSketch low = new DDSketch(ACCURACY);
+        DDSketch high = new DDSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            all.add(values[i]);
+            // split by value so the halves cover different ranges and bin offsets
+            (values[i] < 100 ? low : high).add(values[i]);
+        }
+
+        low.merge(high);
+
+        assertEquals(all.getCount(), low.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), low.quantile(q), "q=" + q);
+        }
+        assertAccurate(low, values, QUANTILES);
+    }
+
+    @Test
+    void mergeRejectsADifferentAccuracy() {
+        DDSketch sketch = new DDSketch(0.01);
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new DDSketch(0.02)));
+    }
+
+    @Test
+    void removeUndoesAdd() {
+        double[] values = lognormal(5_000, 3);
+        DDSketch sketch = new DDSketch(ACCURACY);
+        DDSketch kept = new DDSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            sketch.add(values[i]);
+            if (i % 3 != 0) {
+                kept.add(values[i]);
+            }
+        }
+        for (int i = 0; i < values.length; i += 3) {
+            sketch.remove(values[i]);
+        }
+
+        assertEquals(kept.getCount(), sketch.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(kept.quantile(q), sketch.quantile(q), "q=" + q);
+        }
+    }
+
+    @Test
+    void removingFromAnEmptyBinIsIgnored() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        sketch.remove(5);
+        sketch.remove(0);
+        sketch.add(10);
+        sketch.remove(1_000);
+
+        assertEquals(1, sketch.getCount());
+        assertEquals(10, sketch.quantile(0.5), 10 * ACCURACY);
+    }
+
+    @Test
+    void zeroAndNegativeValuesCountAsZero() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        sketch.add(0);
+        sketch.add(-3);
+        sketch.add(0);
+        sketch.add(50);
+
+        assertEquals(4, sketch.getCount());
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(50, sketch.quantile(1), 50 * ACCURACY);
+        assertTrue(Double.isNaN(new DDSketch(ACCURACY).quantile(0.5)));
+    }
+
+    @Test
+    void stateRoundTripKeepsEveryBin() {
+        double[] values = lognormal(2_000, 4);
+        DDSketch sketch = new DDSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+        sketch.add(0);
+
+        DDSketch copy = DDSketch.fromState(sketch.toState());
+
+        assertEquals(sketch.getCount(), copy.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q), "q=" + q);
+        }
+    }
+
+    @Test
+    void collapsingLowBinsKeepsTheTailAccurate() {
+        // log-uniform over six decades: far more bins than allowed
+        Random random = new Random(5);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.pow(10, 6 * random.nextDouble());
+        }
+        DDSketch sketch = new DDSketch(ACCURACY, 64);
+        for (double value : values) {
+            sketch.add(value);
+        }
+
+        assertEquals(values.length, sketch.getCount());
+        assertAccurate(sketch, values, new double[] {0.99, 1});
+    }
+
+    private static double[] lognormal(int n, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.exp(3 + 1.5 * random.nextGaussian());
+        }
+        return values;
+    }
+
+    private static void assertAccurate(DDSketch sketch, double[] values, double[] quantiles) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : quantiles) {
+            double exact = sorted[(int) (q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= ACCURACY * exact * (1 + 1e-9),
+                    "q=" + q + ": " + estimate + " vs " + exact);
+        }
+    }
+}
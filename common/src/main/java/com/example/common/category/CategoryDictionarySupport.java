@@ -0,0 +1,144 @@
+package com.example.common.category;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory id <-> name map over a service's categories table. Category names are
+ * normalized (trimmed, lower case) once on write and stored as small integer ids, so
+ * filters and report groupings compare ints instead of free-text strings. New categories
+ * are inserted in their own transaction: an id handed out here is never rolled back with
+ * the caller's write, so the cached map cannot point at a missing row.
+ * <p>
+ * The table is loaded once; a name or id that is not in the map is looked up in the
+ * table before it is treated as unknown, so categories added by another instance of the
+ * same service are picked up on first use. Entries are never removed or renamed, so a
+ * cached entry cannot go stale.
+ */
+public abstract class CategoryDictionarySupport<C extends CategoryEntry> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final CategoryEntryRepository<C> categoryRepository;
+    private final BiFunction<String, String, C> factory;
+    private final TransactionTemplate requiresNew;
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> displayNames = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    protected CategoryDictionarySupport(CategoryEntryRepository<C> categoryRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        BiFunction<String, String, C> factory) {
+        this.categoryRepository = categoryRepository;
+        this.factory = factory;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static String normalize(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Id for {@code category}, adding it to the dictionary on first use. Null for a blank category.
+     */
+    public Integer idFor(String category) {
+        String name = normalize(category);
+        if (name.isEmpty()) {
+            return null;
+        }
+        ensureLoaded();
+        Integer id = idsByName.get(name);
+        return id != null ? id : create(name, category.trim());
+    }
+
+    /**
+     * Id of an existing category; never inserts, so it is safe for reads and filters.
+     */
+    public Optional<Integer> findId(String category) {
+        String name = normalize(category);
+        if (name.isEmpty()) {
+            return Optional.empty();
+        }
+        ensureLoaded();
+        Integer id = idsByName.get(name);
+        if (id == null) {
+            id = categoryRepository.findByName(name).map(this::register).orElse(null);
+        }
+        return Optional.ofNullable(id);
+    }
+
+    public String nameFor(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        ensureLoaded();
+        String name = displayNames.get(id);
+        if (name == null) {
+            name = categoryRepository.findById(id).map(category -> {
+                register(category);
+                return category.getDisplayName();
+            }).orElse(null);
+        }
+        return name;
+    }
+
+    /**
+     * Every category as id -> display name, ordered by id.
+     */
+    public Map<Integer, String> getAll() {
+        ensureLoaded();
+        return new TreeMap<>(displayNames);
+    }
+
+    // Serialized so two writers of a new category do not both insert it; another instance
+    // of the service can still win the unique name, and then its row is used instead
+    private synchronized Integer create(String name, String displayName) {
+        Integer existing = idsByName.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        C category;
+        try {
+            category = requiresNew.execute(status -> categoryRepository.findByName(name)
+                    .orElseGet(() -> categoryRepository.save(factory.apply(name, displayName))));
+        } catch (DataIntegrityViolationException e) {
+            category = requiresNew.execute(status -> categoryRepository.findByName(name))
+                    .orElseThrow(() -> e);
+        }
+        register(category);
+        logger.info("Category '{}' registered with id {}", category.getDisplayName(), category.getId());
+        return category.getId();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                List<C> categories = requiresNew.execute(status -> categoryRepository.findAll());
+                categories.forEach(this::register);
+                loaded = true;
+            }
+        }
+    }
+
+    private Integer register(C category) {
+        idsByName.put(category.getName(), category.getId());
+        displayNames.put(category.getId(), category.getDisplayName());
+        return category.getId();
+    }
+}
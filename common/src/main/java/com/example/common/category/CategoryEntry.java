@@ -0,0 +1,56 @@
+package com.example.common.category;
+
+import jakarta.persistence.*;
+
+/**
+ * One entry of the category dictionary: a small integer id for a category name.
+ * {@code name} is the normalized key (trimmed, lower case); {@code displayName}
+ * keeps the spelling the category was first written with. Each service maps its
+ * own {@code categories} table with an entity extending this class.
+ */
+@MappedSuperclass
+public abstract class CategoryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    @Column(name = "display_name", nullable = false)
+    private String displayName;
+
+    // Constructors
+    protected CategoryEntry() {}
+
+    protected CategoryEntry(String name, String displayName) {
+        this.name = name;
+        this.displayName = displayName;
+    }
+
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.common.category;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Optional;
+
+/**
+ * Base of each service's category repository.
+ */
+@NoRepositoryBean
+public interface CategoryEntryRepository<C extends CategoryEntry> extends JpaRepository<C, Integer> {
+    Optional<C> findByName(String name);
+}
@@ -5,9 +5,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "product-service", url = "http://localhost:8083")
 public interface ProductServiceClient {
 
     @PostMapping("/api/products")
     ResponseEntity<Object> createProduct(@RequestBody ProductCreateRequest product);
+
+    @PostMapping("/api/products/bulk")
+    ResponseEntity<Map<String, Object>> createProducts(@RequestBody List<ProductCreateRequest> products);
 }
\ No newline at end of file
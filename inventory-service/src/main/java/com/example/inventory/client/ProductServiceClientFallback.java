@@ -5,6 +5,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class ProductServiceClientFallback implements ProductServiceClient {
 
@@ -16,4 +19,10 @@ public class ProductServiceClientFallback implements ProductServiceClient {
         // Return a fallback response indicating the service is unavailable
         return ResponseEntity.status(503).body("Product service unavailable");
     }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> createProducts(List<ProductCreateRequest> products) {
+        logger.warn("⚠️ Product service is unavailable. Fallback triggered for {} products", products.size());
+        return ResponseEntity.status(503).body(Map.of("created", 0, "skipped", 0));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.example.inventory.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheMetricsConfig {
+
+    // Hit ratios next to the raw hibernate.second.level.cache.requests / hibernate.cache.query.requests counters
+    @Bean
+    public MeterBinder hibernateCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            Gauge.builder("hibernate.cache.hit.ratio", statistics,
+                            s -> ratio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()))
+                    .tag("cache", "second-level")
+                    .description("Share of second-level cache lookups that were hits")
+                    .register(registry);
+            Gauge.builder("hibernate.cache.hit.ratio", statistics,
+                            s -> ratio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+                    .tag("cache", "query")
+                    .description("Share of query cache lookups that were hits")
+                    .register(registry);
+        };
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -1,11 +1,19 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.exception.InsufficientStockException;
 import com.example.inventory.model.Item;
+import com.example.inventory.model.StockReservation;
 import com.example.inventory.service.InventoryService;
+import com.example.inventory.service.ItemImportService;
+import com.example.inventory.service.StockReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +25,12 @@ public class ItemController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ItemImportService importService;
+
     @GetMapping("/")
     public ResponseEntity<Map<String, Object>> root() {
         Map<String, Object> response = new HashMap<>();
@@ -27,9 +41,34 @@ public class ItemController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        List<Item> items = inventoryService.getAllItems();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<List<?>> getAllItems(@RequestParam(required = false) Integer page,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(required = false) Long afterId,
+                                               @RequestParam(required = false) String fields) {
+        boolean paged = page != null || size != null || afterId != null;
+        List<Item> items = paged
+                ? inventoryService.getItemsPage(page, size, afterId)
+                : inventoryService.getAllItems();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (paged && !items.isEmpty()) {
+            // Cursor for the next keyset page
+            response.header("X-Next-After-Id", String.valueOf(items.get(items.size() - 1).getId()));
+        }
+
+        if (fields == null || fields.isBlank()) {
+            return response.body(items);
+        }
+        try {
+            return response.body(inventoryService.projectFields(items, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/category/{category}")
+    public ResponseEntity<List<Item>> getItemsByCategory(@PathVariable String category) {
+        return ResponseEntity.ok(inventoryService.getItemsByCategory(category));
     }
 
     @GetMapping("/{id}")
@@ -48,10 +87,32 @@ public class ItemController {
         return ResponseEntity.ok(savedItem);
     }
 
+    // Streams the raw body: send text/csv or application/x-ndjson, or pass ?format=csv|ndjson
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importItems(InputStream body,
+                                                           @RequestParam(required = false) String format,
+                                                           @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        if (format == null) {
+            format = contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl")) ? "ndjson" : "csv";
+        }
+        try {
+            return ResponseEntity.ok(importService.importItems(body, format));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "Failed to read import body: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PutMapping("/{id}/stock")
     public ResponseEntity<Item> updateStock(@PathVariable Long id, @RequestParam int quantity) {
         try {
-            Item updatedItem = inventoryService.reduceStock(id, quantity);
+            // Plain decrements may not consume stock that is held by reservations
+            Item updatedItem = reservationService.reduceUnreservedStock(id, quantity);
             return ResponseEntity.ok(updatedItem);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -59,9 +120,10 @@ public class ItemController {
     }
 
     @PutMapping("/{id}/stock/add")
-    public ResponseEntity<Item> addStock(@PathVariable Long id, @RequestParam int quantity) {
+    public ResponseEntity<Item> addStock(@PathVariable Long id, @RequestParam int quantity,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Item updatedItem = inventoryService.addStock(id, quantity);
+            Item updatedItem = inventoryService.addStock(id, quantity, idempotencyKey);
             return ResponseEntity.ok(updatedItem);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -71,13 +133,15 @@ public class ItemController {
     @GetMapping("/{id}/stock/check")
     public ResponseEntity<Map<String, Object>> checkStock(@PathVariable Long id, @RequestParam int requiredQuantity) {
         try {
-            boolean available = inventoryService.checkStockAvailability(id, requiredQuantity);
             Item item = inventoryService.getItemById(id);
+            int reserved = reservationService.getHeldQuantity(id);
+            boolean available = item.getQuantity() - reserved >= requiredQuantity;
             
             Map<String, Object> response = new HashMap<>();
             response.put("itemId", id);
             response.put("itemName", item.getName());
             response.put("currentStock", item.getQuantity());
+            response.put("reservedStock", reserved);
             response.put("requiredQuantity", requiredQuantity);
             response.put("available", available);
             response.put("status", available ? "AVAILABLE" : "INSUFFICIENT_STOCK");
@@ -91,6 +155,45 @@ public class ItemController {
         }
     }
 
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<Map<String, Object>> reserveStock(@PathVariable Long id, @RequestParam int quantity,
+                                                            @RequestParam(required = false) Long ttlSeconds) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            StockReservation reservation = reservationService.reserve(id, quantity, ttlSeconds);
+            response.put("reservationId", reservation.getId());
+            response.put("itemId", reservation.getItemId());
+            response.put("quantity", reservation.getQuantity());
+            response.put("expiresAt", reservation.getExpiresAt());
+            response.put("status", "RESERVED");
+            return ResponseEntity.ok(response);
+        } catch (InsufficientStockException e) {
+            response.put("error", e.getMessage());
+            response.put("status", "INSUFFICIENT_STOCK");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (RuntimeException e) {
+            response.put("error", e.getMessage());
+            response.put("status", "ERROR");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<Item> confirmReservation(@PathVariable String reservationId) {
+        try {
+            Item updatedItem = reservationService.confirm(reservationId);
+            return ResponseEntity.ok(updatedItem);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+        boolean released = reservationService.release(reservationId);
+        return released ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody Item updatedItem) {
         try {
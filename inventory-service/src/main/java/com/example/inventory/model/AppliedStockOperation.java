@@ -0,0 +1,58 @@
+package com.example.inventory.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a stock change applied under an {@code Idempotency-Key}, so a retried
+ * call (e.g. a saga compensation resent after a timeout) is applied only once.
+ * Rows are only ever inserted, never updated: a duplicate key fails the insert.
+ */
+@Entity
+@Table(name = "applied_stock_operations")
+public class AppliedStockOperation implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+
+    // Constructors
+    public AppliedStockOperation() {}
+
+    public AppliedStockOperation(String idempotencyKey, Long itemId, int quantity) {
+        this.idempotencyKey = idempotencyKey;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.appliedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    // Getters
+    public String getIdempotencyKey() { return idempotencyKey; }
+
+    public Long getItemId() { return itemId; }
+
+    public int getQuantity() { return quantity; }
+
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+}
@@ -0,0 +1,26 @@
+package com.example.inventory.model;
+
+import com.example.common.category.CategoryEntry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * This service's category dictionary table; see {@link CategoryEntry}.
+ * <p>
+ * {@link Item#getCategoryId()} stays a plain Integer rather than a mapped association:
+ * readers only ever need the id, and an association would add a lazy proxy to an entity that
+ * is serialized as-is. The {@code fk_item_category} foreign key is therefore declared only by the
+ * Flyway migration ({@code persistent} profile); under ddl-auto the column is unconstrained
+ * and relies on CategoryDictionary handing out ids only after their row has committed.
+ */
+@Entity
+@Table(name = "categories")
+public class Category extends CategoryEntry {
+
+    // Constructors
+    public Category() {}
+
+    public Category(String name, String displayName) {
+        super(name, displayName);
+    }
+}
@@ -2,8 +2,17 @@ package com.example.inventory.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_item_category", columnList = "category"),
+    @Index(name = "idx_item_category_id", columnList = "category_id"),
+    @Index(name = "idx_item_name", columnList = "name")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @Builder
 @NoArgsConstructor
@@ -11,11 +20,15 @@ import lombok.*;
 public class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String category;
+    // Dictionary id of the category (see CategoryDictionary); category keeps the text for the API
+    @Column(name = "category_id")
+    private Integer categoryId;
     private double price;
 
     // renamed to stock (your DB has 'stock' column)
@@ -54,6 +67,14 @@ public class Item {
         this.category = category;
     }
 
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -0,0 +1,9 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.model.AppliedStockOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AppliedStockOperationRepository extends JpaRepository<AppliedStockOperation, String> {
+}
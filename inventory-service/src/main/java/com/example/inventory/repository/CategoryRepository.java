@@ -0,0 +1,9 @@
+package com.example.inventory.repository;
+
+import com.example.common.category.CategoryEntryRepository;
+import com.example.inventory.model.Category;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CategoryRepository extends CategoryEntryRepository<Category> {
+}
@@ -1,14 +1,35 @@
 package com.example.inventory.repository;
 
 import com.example.inventory.model.Item;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
     Optional<Item> findByName(String name);
-    List<Item> findByCategory(String category);
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Item> findByCategoryId(Integer categoryId);
+
+    // Keyset pagination: next page of items after the given cursor id
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Existing names, to seed duplicate detection for bulk imports
+    @Query("select i.name from Item i")
+    List<String> findAllNames();
+
+    // Write-behind of in-memory stock counters: touches only the quantity column
+    @Modifying
+    @Query("update Item i set i.quantity = :quantity where i.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -2,29 +2,50 @@ package com.example.inventory.service;
 
 import com.example.inventory.client.ProductCreateRequest;
 import com.example.inventory.client.ProductServiceClient;
+import com.example.inventory.model.AppliedStockOperation;
 import com.example.inventory.model.Item;
+import com.example.inventory.repository.AppliedStockOperationRepository;
 import com.example.inventory.repository.ItemRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class InventoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final Set<String> ITEM_FIELDS = Set.of("id", "name", "category", "price", "quantity");
     private final ItemRepository itemRepository;
     private final ProductServiceClient productServiceClient;
+    private final StockCounterEngine stockCounterEngine;
+    private final CategoryDictionary categoryDictionary;
+    private final AppliedStockOperationRepository appliedStockOperationRepository;
 
-    public InventoryService(ItemRepository itemRepository, ProductServiceClient productServiceClient) {
+    public InventoryService(ItemRepository itemRepository, ProductServiceClient productServiceClient,
+                            StockCounterEngine stockCounterEngine, CategoryDictionary categoryDictionary,
+                            AppliedStockOperationRepository appliedStockOperationRepository) {
         this.itemRepository = itemRepository;
         this.productServiceClient = productServiceClient;
+        this.stockCounterEngine = stockCounterEngine;
+        this.categoryDictionary = categoryDictionary;
+        this.appliedStockOperationRepository = appliedStockOperationRepository;
     }
 
     public Item addItem(Item item) {
         // Save item to inventory
+        item.setCategoryId(categoryDictionary.idFor(item.getCategory()));
         Item savedItem = itemRepository.save(item);
         logger.info("Item added to inventory: {}", savedItem.getName());
         
@@ -50,16 +71,78 @@ public class InventoryService {
     }
 
     public List<Item> getAllItems() {
-        return itemRepository.findAll();
+        return stockCounterEngine.overlay(itemRepository.findAll());
+    }
+
+    /**
+     * Returns one page of items ordered by id. When {@code afterId} is given the
+     * page starts right after that id (keyset cursor), otherwise {@code page} is used.
+     */
+    public List<Item> getItemsPage(Integer page, Integer size, Long afterId) {
+        int pageSize = size == null ? 100 : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (afterId != null) {
+            return stockCounterEngine.overlay(
+                    itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize)));
+        }
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        return stockCounterEngine.overlay(
+                itemRepository.findAll(PageRequest.of(pageNumber, pageSize, Sort.by("id"))).getContent());
+    }
+
+    /**
+     * Projects items down to the requested comma-separated fields, e.g. "id,name,quantity".
+     */
+    public List<Map<String, Object>> projectFields(List<Item> items, String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!ITEM_FIELDS.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown item field: " + trimmed);
+            }
+            requested.add(trimmed);
+        }
+
+        List<Map<String, Object>> projected = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : requested) {
+                switch (field) {
+                    case "id" -> row.put("id", item.getId());
+                    case "name" -> row.put("name", item.getName());
+                    case "category" -> row.put("category", item.getCategory());
+                    case "price" -> row.put("price", item.getPrice());
+                    case "quantity" -> row.put("quantity", item.getQuantity());
+                    default -> { }
+                }
+            }
+            projected.add(row);
+        }
+        return projected;
     }
 
     public Item getItemById(Long id) {
+        if (stockCounterEngine.isEnabled()) {
+            return stockCounterEngine.getItem(id)
+                    .orElseThrow(() -> new RuntimeException("Item not found"));
+        }
         return itemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
     }
 
+    public List<Item> getItemsByCategory(String category) {
+        return categoryDictionary.findId(category)
+                .map(categoryId -> stockCounterEngine.overlay(itemRepository.findByCategoryId(categoryId)))
+                .orElseGet(ArrayList::new);
+    }
+
     public Item updateItem(Item item) {
-        return itemRepository.save(item);
+        item.setCategoryId(categoryDictionary.idFor(item.getCategory()));
+        Item savedItem = itemRepository.save(item);
+        stockCounterEngine.reset(savedItem);
+        return savedItem;
     }
 
     public void deleteItem(Long id) {
@@ -67,6 +150,7 @@ public class InventoryService {
             throw new RuntimeException("Item not found with id: " + id);
         }
         itemRepository.deleteById(id);
+        stockCounterEngine.evict(id);
     }
 
     public int syncAllItemsToProducts() {
@@ -117,6 +201,9 @@ public class InventoryService {
 
     // Stock Management Methods
     public Item reduceStock(Long itemId, int quantity) {
+        if (stockCounterEngine.isEnabled()) {
+            return reduceStockInMemory(itemId, quantity);
+        }
         Item item = getItemById(itemId);
         
         if (quantity <= 0) {
@@ -144,6 +231,9 @@ public class InventoryService {
     }
 
     public Item addStock(Long itemId, int quantity) {
+        if (stockCounterEngine.isEnabled()) {
+            return addStockInMemory(itemId, quantity);
+        }
         Item item = getItemById(itemId);
         
         if (quantity <= 0) {
@@ -166,6 +256,53 @@ public class InventoryService {
         return updatedItem;
     }
 
+    /**
+     * Adds stock at most once per {@code idempotencyKey}. The key is stored in the same
+     * transaction as the stock change, so either both commit or neither does; a retry of a
+     * call that already went through returns the current item unchanged, and a concurrent
+     * duplicate fails on the primary key and rolls back. The key is flushed before the
+     * change so that, with the in-memory stock engine, the counter is only touched once the
+     * key is known to be new.
+     */
+    @Transactional
+    public Item addStock(Long itemId, int quantity, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return addStock(itemId, quantity);
+        }
+        if (appliedStockOperationRepository.existsById(idempotencyKey)) {
+            logger.info("Stock addition {} already applied, ignoring retry", idempotencyKey);
+            return getItemById(itemId);
+        }
+        appliedStockOperationRepository.saveAndFlush(new AppliedStockOperation(idempotencyKey, itemId, quantity));
+        return addStock(itemId, quantity);
+    }
+
+    // Hot path for the in-memory stock engine: no entity load or save per call,
+    // the counter is persisted by the engine's write-behind flush
+    private Item reduceStockInMemory(Long itemId, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        Item item = getItemById(itemId);
+        int remaining = stockCounterEngine.tryDecrement(itemId, quantity);
+        if (remaining < 0) {
+            throw new RuntimeException("Insufficient stock. Available: " + getItemById(itemId).getQuantity() + ", Required: " + quantity);
+        }
+        item.setQuantity(remaining);
+        logger.debug("Stock reduced in memory for item {}: {} units (remaining: {})", itemId, quantity, remaining);
+        return item;
+    }
+
+    private Item addStockInMemory(Long itemId, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        Item item = getItemById(itemId);
+        item.setQuantity(stockCounterEngine.increment(itemId, quantity));
+        logger.debug("Stock added in memory for item {}: {} units (total: {})", itemId, quantity, item.getQuantity());
+        return item;
+    }
+
     public boolean checkStockAvailability(Long itemId, int requiredQuantity) {
         try {
             Item item = getItemById(itemId);
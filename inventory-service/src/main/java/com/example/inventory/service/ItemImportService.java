@@ -0,0 +1,293 @@
+package com.example.inventory.service;
+
+import com.example.inventory.client.ProductCreateRequest;
+import com.example.inventory.client.ProductServiceClient;
+import com.example.inventory.model.Item;
+import com.example.inventory.repository.ItemRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming bulk import of items from CSV (header: name,category,price,quantity[,sku])
+ * or NDJSON (one JSON object per line with the same fields). The body is read line by
+ * line and items are inserted in batches; only one batch plus the set of seen names and
+ * SKUs is kept in memory. Each saved batch is pushed to the product service with a
+ * single bulk call instead of one createProduct call per item.
+ */
+@Service
+public class ItemImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final ItemRepository itemRepository;
+    private final ProductServiceClient productServiceClient;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryDictionary categoryDictionary;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${inventory.import.batch-size:1000}")
+    private int batchSize;
+
+    public ItemImportService(ItemRepository itemRepository, ProductServiceClient productServiceClient,
+                             ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                             CategoryDictionary categoryDictionary) {
+        this.itemRepository = itemRepository;
+        this.productServiceClient = productServiceClient;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public Map<String, Object> importItems(InputStream body, String format) throws IOException {
+        boolean csv = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> true;
+            case "ndjson", "jsonl" -> false;
+            default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+        };
+
+        long start = System.currentTimeMillis();
+        ImportStats stats = new ImportStats();
+        Set<String> seenNames = new HashSet<>();
+        for (String name : itemRepository.findAllNames()) {
+            seenNames.add(normalize(name));
+        }
+        Set<String> seenSkus = new HashSet<>();
+        List<Item> batch = new ArrayList<>(batchSize);
+        List<String> batchSkus = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = csv ? parseHeader(reader.readLine()) : null;
+            String line;
+            int lineNumber = csv ? 1 : 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Item item;
+                String sku;
+                try {
+                    Map<String, String> row = csv ? csvRow(line, columns) : jsonRow(line);
+                    item = toItem(row);
+                    sku = blankToNull(row.get("sku"));
+                } catch (IllegalArgumentException | IOException e) {
+                    stats.invalid++;
+                    stats.error(lineNumber, e.getMessage());
+                    continue;
+                }
+
+                if (!seenNames.add(normalize(item.getName())) || (sku != null && !seenSkus.add(sku))) {
+                    stats.duplicates++;
+                    continue;
+                }
+                batch.add(item);
+                batchSkus.add(sku);
+                if (batch.size() >= batchSize) {
+                    saveBatch(batch, batchSkus, seenSkus, stats);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            saveBatch(batch, batchSkus, seenSkus, stats);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("📦 Imported {} items ({} duplicates, {} invalid) in {} ms",
+                stats.imported, stats.duplicates, stats.invalid, elapsed);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("imported", stats.imported);
+        result.put("duplicates", stats.duplicates);
+        result.put("invalid", stats.invalid);
+        result.put("productsCreated", stats.productsCreated);
+        result.put("productSyncFailed", stats.productSyncFailed);
+        result.put("elapsedMs", elapsed);
+        result.put("errors", stats.errors);
+        return result;
+    }
+
+    private void saveBatch(List<Item> batch, List<String> skus, Set<String> seenSkus, ImportStats stats) {
+        transactionTemplate.executeWithoutResult(status -> {
+            itemRepository.saveAll(batch);
+            // write the JDBC batch now and drop the entities so the persistence context stays small
+            entityManager.flush();
+            entityManager.clear();
+        });
+        stats.imported += batch.size();
+
+        List<ProductCreateRequest> requests = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Item item = batch.get(i);
+            String sku = skus.get(i);
+            if (sku == null) {
+                // the generated SKU may already be used by an explicit SKU in this file
+                String base = "INV-" + item.getId();
+                sku = base;
+                for (int n = 1; !seenSkus.add(sku); n++) {
+                    sku = base + "-" + n;
+                }
+            }
+            requests.add(new ProductCreateRequest(
+                    item.getName(),
+                    item.getCategory(),
+                    "Imported into inventory - " + item.getName(),
+                    BigDecimal.valueOf(item.getPrice()),
+                    item.getQuantity(),
+                    sku,
+                    true));
+        }
+        try {
+            ResponseEntity<Map<String, Object>> response = productServiceClient.createProducts(requests);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                stats.productsCreated += ((Number) response.getBody().getOrDefault("created", 0)).intValue();
+            } else {
+                stats.productSyncFailed += requests.size();
+            }
+        } catch (Exception e) {
+            stats.productSyncFailed += requests.size();
+            logger.warn("⚠️ Failed to sync imported batch to product service: {}", e.getMessage());
+        }
+
+        batch.clear();
+        skus.clear();
+    }
+
+    private Item toItem(Map<String, String> row) {
+        String name = blankToNull(row.get("name"));
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        String category = blankToNull(row.get("category"));
+        try {
+            return Item.builder()
+                    .name(name)
+                    .category(category)
+                    .categoryId(categoryDictionary.idFor(category))
+                    .price(row.get("price") == null ? 0 : Double.parseDouble(row.get("price").trim()))
+                    .quantity(row.get("quantity") == null ? 0 : Integer.parseInt(row.get("quantity").trim()))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must contain a name column");
+        }
+        return columns;
+    }
+
+    private Map<String, String> csvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        Map<String, String> row = new HashMap<>();
+        columns.forEach((column, index) -> {
+            if (index < values.size()) {
+                row.put(column, values.get(index));
+            }
+        });
+        return row;
+    }
+
+    private Map<String, String> jsonRow(String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        Map<String, String> row = new HashMap<>();
+        node.fields().forEachRemaining(field -> {
+            if (!field.getValue().isNull()) {
+                row.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue().asText());
+            }
+        });
+        return row;
+    }
+
+    // RFC 4180 style: commas inside double quotes, "" as an escaped quote
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static final class ImportStats {
+        private int imported;
+        private int duplicates;
+        private int invalid;
+        private int productsCreated;
+        private int productSyncFailed;
+        private final List<String> errors = new ArrayList<>();
+
+        private void error(int lineNumber, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + message);
+            }
+        }
+    }
+}
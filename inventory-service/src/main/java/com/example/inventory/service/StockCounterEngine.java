@@ -0,0 +1,310 @@
+package com.example.inventory.service;
+
+import com.example.inventory.model.Item;
+import com.example.inventory.repository.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional in-memory stock engine (inventory.stock-engine.enabled). While enabled the
+ * per-item counters here are authoritative: decrements are a CAS on an atomic
+ * version+quantity word, no database round trip. Every change is appended to the
+ * {@link StockWriteAheadLog} and acknowledged once its group commit is on disk; a
+ * change that cannot be made durable is reversed before the caller sees the failure.
+ * Changed items are marked dirty and their current quantity is written back in one
+ * batched transaction every flush-ms. The write-back is a bulk update that does not go
+ * through the entity, so the flushed items are evicted from the second-level cache once
+ * it commits.
+ */
+@Component
+public class StockCounterEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockCounterEngine.class);
+
+    private final ItemRepository itemRepository;
+    private final StockWriteAheadLog writeAheadLog;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache secondLevelCache;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Value("${inventory.stock-engine.enabled:false}")
+    private boolean enabled;
+
+    public StockCounterEngine(ItemRepository itemRepository, StockWriteAheadLog writeAheadLog,
+                              PlatformTransactionManager transactionManager,
+                              EntityManagerFactory entityManagerFactory) {
+        this.itemRepository = itemRepository;
+        this.writeAheadLog = writeAheadLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.secondLevelCache = entityManagerFactory.getCache();
+        writeAheadLog.setCompactionSource(this::unflushedState);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Applies stock changes recovered from the WAL that may not have reached the
+     * database before the last shutdown. Runs during context startup, before the web
+     * server accepts requests, so no request sees the pre-crash database quantities.
+     */
+    @PostConstruct
+    public void recover() {
+        Map<Long, StockWriteAheadLog.LoggedStock> recovered = writeAheadLog.getRecoveredState();
+        int applied = 0;
+        for (StockWriteAheadLog.LoggedStock stock : recovered.values()) {
+            Optional<Item> item = itemRepository.findById(stock.itemId());
+            if (item.isPresent()) {
+                Counter counter = new Counter(item.get(), stock.version(), stock.quantity());
+                counter.flushedVersion = -1;
+                counters.put(stock.itemId(), counter);
+                dirty.add(stock.itemId());
+                applied++;
+            }
+        }
+        if (!recovered.isEmpty()) {
+            logger.info("Recovered stock for {} items from the WAL ({} no longer exist)",
+                    applied, recovered.size() - applied);
+            flush();
+        }
+    }
+
+    /**
+     * Current item with its in-memory quantity, loading the counter on first use.
+     */
+    public Optional<Item> getItem(Long itemId) {
+        Counter counter = counterFor(itemId);
+        return Optional.ofNullable(counter == null ? null : counter.snapshot());
+    }
+
+    /**
+     * Atomically takes {@code quantity} units. Returns the remaining quantity, or -1 when
+     * there is not enough stock (the counter is left untouched).
+     */
+    public int tryDecrement(Long itemId, int quantity) {
+        Counter counter = requireCounter(itemId);
+        while (true) {
+            long state = counter.state.get();
+            int current = quantityOf(state);
+            if (current < quantity) {
+                return -1;
+            }
+            long next = pack(versionOf(state) + 1, current - quantity);
+            if (counter.state.compareAndSet(state, next)) {
+                logChange(counter, itemId, -quantity, next);
+                return current - quantity;
+            }
+        }
+    }
+
+    public int increment(Long itemId, int quantity) {
+        Counter counter = requireCounter(itemId);
+        while (true) {
+            long state = counter.state.get();
+            long next = pack(versionOf(state) + 1, quantityOf(state) + quantity);
+            if (counter.state.compareAndSet(state, next)) {
+                logChange(counter, itemId, quantity, next);
+                return quantityOf(next);
+            }
+        }
+    }
+
+    /**
+     * Replaces the cached copy after a full entity save (the save already wrote the quantity).
+     */
+    public void reset(Item item) {
+        if (!enabled || item.getId() == null) {
+            return;
+        }
+        Counter previous = counters.get(item.getId());
+        long version = previous == null ? 0 : versionOf(previous.state.get()) + 1;
+        Counter counter = new Counter(item, version, item.getQuantity());
+        counter.flushedVersion = version;
+        counters.put(item.getId(), counter);
+        if (writeAheadLog.isEnabled()) {
+            // supersedes older WAL records so replay does not bring back the previous quantity
+            writeAheadLog.awaitDurable(writeAheadLog.append(item.getId(), version, 0, item.getQuantity()));
+        }
+    }
+
+    public void evict(Long itemId) {
+        counters.remove(itemId);
+        dirty.remove(itemId);
+    }
+
+    /**
+     * Overwrites quantities of freshly loaded items with the in-memory values.
+     */
+    public List<Item> overlay(List<Item> items) {
+        if (!enabled || counters.isEmpty()) {
+            return items;
+        }
+        for (Item item : items) {
+            Counter counter = counters.get(item.getId());
+            if (counter != null) {
+                item.setQuantity(quantityOf(counter.state.get()));
+            }
+        }
+        return items;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stock-engine.flush-ms:200}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty.size());
+        for (Long itemId : dirty) {
+            // removed before reading the value: a concurrent change re-marks the item
+            if (dirty.remove(itemId)) {
+                ids.add(itemId);
+            }
+        }
+        Map<Counter, Long> flushed = new HashMap<>();
+        List<Long> written = new ArrayList<>(ids.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Long itemId : ids) {
+                    Counter counter = counters.get(itemId);
+                    if (counter != null) {
+                        long state = counter.state.get();
+                        itemRepository.updateQuantity(itemId, quantityOf(state));
+                        flushed.put(counter, versionOf(state));
+                        written.add(itemId);
+                    }
+                }
+            });
+            flushed.forEach((counter, version) -> counter.flushedVersion = Math.max(counter.flushedVersion, version));
+            // only the rows written: the rest of the Item region stays warm
+            written.forEach(itemId -> secondLevelCache.evict(Item.class, itemId));
+            logger.debug("Flushed stock counters for {} items", ids.size());
+        } catch (RuntimeException e) {
+            dirty.addAll(ids);
+            logger.warn("⚠️ Failed to flush stock counters for {} items, will retry: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Items whose latest change is not in the database yet; rewritten at the head of a new WAL segment
+    private List<StockWriteAheadLog.LoggedStock> unflushedState() {
+        List<StockWriteAheadLog.LoggedStock> state = new ArrayList<>();
+        counters.forEach((itemId, counter) -> {
+            long current = counter.state.get();
+            if (versionOf(current) > counter.flushedVersion) {
+                state.add(new StockWriteAheadLog.LoggedStock(itemId, versionOf(current), quantityOf(current)));
+            }
+        });
+        return state;
+    }
+
+    private void logChange(Counter counter, Long itemId, int delta, long state) {
+        dirty.add(itemId);
+        if (writeAheadLog.isEnabled()) {
+            try {
+                long seq = writeAheadLog.append(itemId, versionOf(state), delta, quantityOf(state));
+                writeAheadLog.awaitDurable(seq);
+            } catch (RuntimeException e) {
+                undo(counter, itemId, delta);
+                throw e;
+            }
+        }
+    }
+
+    // Reverses a change whose WAL record did not become durable. The reversal is a new
+    // version, so it also wins on replay if the original record still reached the disk.
+    private void undo(Counter counter, Long itemId, int delta) {
+        while (true) {
+            long state = counter.state.get();
+            long next = pack(versionOf(state) + 1, quantityOf(state) - delta);
+            if (counter.state.compareAndSet(state, next)) {
+                dirty.add(itemId);
+                try {
+                    writeAheadLog.append(itemId, versionOf(next), -delta, quantityOf(next));
+                } catch (RuntimeException e) {
+                    logger.warn("⚠️ Could not log the reversal of a failed stock change for item {}: {}",
+                            itemId, e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private Counter requireCounter(Long itemId) {
+        Counter counter = counterFor(itemId);
+        if (counter == null) {
+            throw new RuntimeException("Item not found");
+        }
+        return counter;
+    }
+
+    private Counter counterFor(Long itemId) {
+        Counter counter = counters.get(itemId);
+        if (counter != null) {
+            return counter;
+        }
+        // loaded outside computeIfAbsent so the map bin is not locked during the query
+        Optional<Item> item = itemRepository.findById(itemId);
+        return item.map(loaded -> counters.computeIfAbsent(itemId, id -> new Counter(loaded, 0, loaded.getQuantity())))
+                .orElse(null);
+    }
+
+    // Version in the high 32 bits, quantity in the low 32 bits, so both change in one CAS
+    private static long pack(long version, int quantity) {
+        return (version << 32) | (quantity & 0xFFFFFFFFL);
+    }
+
+    private static long versionOf(long state) {
+        return state >>> 32;
+    }
+
+    private static int quantityOf(long state) {
+        return (int) state;
+    }
+
+    private static final class Counter {
+        private final Item item;
+        private final AtomicLong state;
+        private volatile long flushedVersion;
+
+        private Counter(Item item, long version, int quantity) {
+            this.item = item;
+            this.state = new AtomicLong(pack(version, quantity));
+            this.flushedVersion = version;
+        }
+
+        private Item snapshot() {
+            return Item.builder()
+                    .id(item.getId())
+                    .name(item.getName())
+                    .category(item.getCategory())
+                    .categoryId(item.getCategoryId())
+                    .price(item.getPrice())
+                    .quantity(quantityOf(state.get()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.inventory.service;
+
+import com.example.inventory.exception.InsufficientStockException;
+import com.example.inventory.model.Item;
+import com.example.inventory.model.StockReservation;
+import com.example.inventory.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock reservations (reserve, confirm, release) backed by an in-memory ledger of
+ * holds per item. Items are guarded by a fixed set of striped locks rather than
+ * database row locks. Each hold is persisted as one small row so active holds
+ * survive a restart, and holds past their TTL are released by a background sweep.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+    private static final int STRIPES = 64;
+
+    private final InventoryService inventoryService;
+    private final StockReservationRepository reservationRepository;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    // itemId -> (reservationId -> hold); only mutated while holding the item's stripe lock
+    private final Map<Long, Map<String, StockReservation>> ledger = new ConcurrentHashMap<>();
+    // reservationId -> itemId, to find the stripe for confirm/release
+    private final Map<String, Long> reservationItems = new ConcurrentHashMap<>();
+
+    @Value("${inventory.reservations.default-ttl-seconds:300}")
+    private long defaultTtlSeconds;
+
+    public StockReservationService(InventoryService inventoryService,
+                                   StockReservationRepository reservationRepository) {
+        this.inventoryService = inventoryService;
+        this.reservationRepository = reservationRepository;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired = new ArrayList<>();
+        for (StockReservation reservation : reservationRepository.findAll()) {
+            if (reservation.isExpired(now)) {
+                expired.add(reservation);
+            } else {
+                addHold(reservation);
+            }
+        }
+        reservationRepository.deleteAllInBatch(expired);
+        logger.info("Loaded {} active stock reservations ({} expired)", reservationItems.size(), expired.size());
+    }
+
+    public StockReservation reserve(Long itemId, int quantity, Long ttlSeconds) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        long ttl = ttlSeconds != null && ttlSeconds > 0 ? ttlSeconds : defaultTtlSeconds;
+
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            int available = availableQuantity(inventoryService.getItemById(itemId));
+            if (available < quantity) {
+                throw new InsufficientStockException("Insufficient stock. Available: " + available + ", Required: " + quantity);
+            }
+            StockReservation reservation = new StockReservation(
+                    UUID.randomUUID().toString(), itemId, quantity, LocalDateTime.now().plusSeconds(ttl));
+            reservationRepository.save(reservation);
+            addHold(reservation);
+            logger.info("🔒 Reserved {} units of item {} (reservation {})", quantity, itemId, reservation.getId());
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Turns a hold into a real stock decrement.
+     */
+    public Item confirm(String reservationId) {
+        Long itemId = reservationItems.get(reservationId);
+        if (itemId == null) {
+            throw new RuntimeException("Reservation not found or expired: " + reservationId);
+        }
+
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            StockReservation reservation = removeHold(itemId, reservationId);
+            if (reservation == null) {
+                throw new RuntimeException("Reservation not found or expired: " + reservationId);
+            }
+            Item item;
+            try {
+                item = inventoryService.reduceStock(itemId, reservation.getQuantity());
+            } catch (RuntimeException e) {
+                addHold(reservation);
+                throw e;
+            }
+            reservationRepository.deleteById(reservationId);
+            logger.info("✅ Confirmed reservation {} for item {}", reservationId, itemId);
+            return item;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean release(String reservationId) {
+        Long itemId = reservationItems.get(reservationId);
+        if (itemId == null) {
+            return false;
+        }
+
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            StockReservation reservation = removeHold(itemId, reservationId);
+            if (reservation == null) {
+                return false;
+            }
+            reservationRepository.deleteById(reservationId);
+            logger.info("🔓 Released reservation {} for item {}", reservationId, itemId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decrement that is not backed by a reservation; it may only use stock nobody holds.
+     */
+    public Item reduceUnreservedStock(Long itemId, int quantity) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            int available = availableQuantity(inventoryService.getItemById(itemId));
+            if (available < quantity) {
+                throw new InsufficientStockException("Insufficient stock. Available: " + available + ", Required: " + quantity);
+            }
+            return inventoryService.reduceStock(itemId, quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAvailableQuantity(Long itemId) {
+        return availableQuantity(inventoryService.getItemById(itemId));
+    }
+
+    public int getHeldQuantity(Long itemId) {
+        Map<String, StockReservation> holds = ledger.get(itemId);
+        if (holds == null) {
+            return 0;
+        }
+        int held = 0;
+        for (StockReservation reservation : holds.values()) {
+            held += reservation.getQuantity();
+        }
+        return held;
+    }
+
+    public Optional<StockReservation> getReservation(String reservationId) {
+        Long itemId = reservationItems.get(reservationId);
+        Map<String, StockReservation> holds = itemId == null ? null : ledger.get(itemId);
+        return Optional.ofNullable(holds == null ? null : holds.get(reservationId));
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-ms:1000}")
+    public void expireReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> expiredIds = new ArrayList<>();
+        for (Map.Entry<Long, Map<String, StockReservation>> entry : ledger.entrySet()) {
+            ReentrantLock lock = lockFor(entry.getKey());
+            lock.lock();
+            try {
+                Iterator<StockReservation> holds = entry.getValue().values().iterator();
+                while (holds.hasNext()) {
+                    StockReservation reservation = holds.next();
+                    if (reservation.isExpired(now)) {
+                        holds.remove();
+                        reservationItems.remove(reservation.getId());
+                        expiredIds.add(reservation.getId());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!expiredIds.isEmpty()) {
+            reservationRepository.deleteAllByIdInBatch(expiredIds);
+            logger.info("⌛ Released {} expired stock reservations", expiredIds.size());
+        }
+    }
+
+    private int availableQuantity(Item item) {
+        return item.getQuantity() - getHeldQuantity(item.getId());
+    }
+
+    private void addHold(StockReservation reservation) {
+        ledger.computeIfAbsent(reservation.getItemId(), id -> new ConcurrentHashMap<>())
+                .put(reservation.getId(), reservation);
+        reservationItems.put(reservation.getId(), reservation.getItemId());
+    }
+
+    private StockReservation removeHold(Long itemId, String reservationId) {
+        reservationItems.remove(reservationId);
+        Map<String, StockReservation> holds = ledger.get(itemId);
+        return holds == null ? null : holds.remove(reservationId);
+    }
+
+    private ReentrantLock lockFor(Long itemId) {
+        return locks[Math.floorMod(itemId.hashCode(), STRIPES)];
+    }
+}
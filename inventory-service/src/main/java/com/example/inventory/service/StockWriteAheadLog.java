@@ -0,0 +1,369 @@
+package com.example.inventory.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of stock changes made by the in-memory stock engine, written to
+ * fixed-size memory-mapped segment files.
+ *
+ * <p>Record layout: {@code [int length][int crc32][long seq][long itemId][long version]
+ * [int delta][int quantityAfter][long timestampMillis]}. Records carry the item's
+ * counter version and resulting quantity, so replay keeps the highest version per
+ * item and does not depend on append order. A background thread, woken by waiting
+ * writers, forces the active segment to disk and releases every writer whose record
+ * it covered; records appended during a sync go out together in the next one (group
+ * commit). Writers fail rather than return if the log closes or a sync fails first.
+ * When a segment fills up the log rolls to a new one that starts with the latest
+ * not-yet-flushed state of every item, and the older segments are deleted.
+ */
+@Component
+public class StockWriteAheadLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockWriteAheadLog.class);
+    private static final int PAYLOAD_BYTES = 40;
+    private static final int RECORD_BYTES = 8 + PAYLOAD_BYTES;
+    private static final String SEGMENT_PREFIX = "stock-wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    public record LoggedStock(long itemId, long version, int quantity) { }
+
+    @Value("${inventory.stock-engine.enabled:false}")
+    private boolean engineEnabled;
+
+    @Value("${inventory.stock-engine.wal.enabled:true}")
+    private boolean walEnabled;
+
+    @Value("${inventory.stock-engine.wal.dir:./data/stock-wal}")
+    private String directory;
+
+    @Value("${inventory.stock-engine.wal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    private final Object appendLock = new Object();
+    private final Object durableMonitor = new Object();
+    private final CRC32 crc = new CRC32();
+    private final byte[] payload = new byte[PAYLOAD_BYTES];
+
+    private Path dir;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private long lastSeq;
+    private volatile long durableSeq;
+    private boolean forceRequested;
+    private volatile boolean running;
+    // set once no further sync will happen; waiters still short of durable then fail
+    private volatile boolean closed;
+    private Thread forceThread;
+    private Map<Long, LoggedStock> recovered = Collections.emptyMap();
+    private Supplier<Collection<LoggedStock>> compactionSource = List::of;
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!engineEnabled || !walEnabled) {
+            return;
+        }
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+
+        List<Path> oldSegments = listSegments();
+        recovered = replay(oldSegments);
+
+        synchronized (appendLock) {
+            openSegment(lastSeq + 1);
+            for (LoggedStock stock : recovered.values()) {
+                write(stock.itemId(), stock.version(), 0, stock.quantity());
+            }
+            segment.force();
+            durableSeq = lastSeq;
+        }
+        for (Path old : oldSegments) {
+            Files.deleteIfExists(old);
+        }
+
+        running = true;
+        forceThread = new Thread(this::forceLoop, "stock-wal-force");
+        forceThread.setDaemon(true);
+        forceThread.start();
+        logger.info("Stock WAL opened in {} ({} segments replayed, {} items recovered)",
+                dir.toAbsolutePath(), oldSegments.size(), recovered.size());
+    }
+
+    /**
+     * Latest logged state per item found on startup; applied once by the stock engine.
+     */
+    public Map<Long, LoggedStock> getRecoveredState() {
+        return recovered;
+    }
+
+    /**
+     * Source of the live state written at the head of every new segment on roll.
+     */
+    public void setCompactionSource(Supplier<Collection<LoggedStock>> compactionSource) {
+        this.compactionSource = compactionSource;
+    }
+
+    /**
+     * Appends a record to the mapped segment and returns its sequence number. The
+     * record is not durable until {@link #awaitDurable(long)} returns.
+     */
+    public long append(long itemId, long version, int delta, int quantityAfter) {
+        synchronized (appendLock) {
+            if (!running) {
+                throw new IllegalStateException("Stock WAL is closed");
+            }
+            if (segment.remaining() < RECORD_BYTES) {
+                roll();
+            }
+            return write(itemId, version, delta, quantityAfter);
+        }
+    }
+
+    /**
+     * Blocks until the record with sequence {@code seq} is on disk. Throws if the log
+     * was closed or failed before that happened.
+     */
+    public void awaitDurable(long seq) {
+        if (durableSeq >= seq) {
+            return;
+        }
+        synchronized (durableMonitor) {
+            forceRequested = true;
+            durableMonitor.notifyAll();
+            while (durableSeq < seq && !closed) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for stock WAL sync", e);
+                }
+            }
+            if (durableSeq < seq) {
+                throw new IllegalStateException("Stock WAL closed before record " + seq + " was synced");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        long target;
+        synchronized (appendLock) {
+            running = false;
+            target = lastSeq;
+        }
+        forceThread.interrupt();
+        try {
+            synchronized (appendLock) {
+                segment.force();
+                channel.close();
+            }
+            // everything appended before close is on disk now
+            markDurable(target);
+        } finally {
+            synchronized (durableMonitor) {
+                closed = true;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void forceLoop() {
+        while (running) {
+            try {
+                synchronized (durableMonitor) {
+                    while (!forceRequested && running) {
+                        durableMonitor.wait();
+                    }
+                    forceRequested = false;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            // everything appended up to now, including writers that arrived during the last sync
+            long target;
+            MappedByteBuffer toForce;
+            synchronized (appendLock) {
+                target = lastSeq;
+                toForce = segment;
+            }
+            if (target > durableSeq) {
+                try {
+                    toForce.force();
+                } catch (RuntimeException e) {
+                    logger.error("❌ Stock WAL sync failed, no further stock changes are accepted: {}", e.getMessage(), e);
+                    running = false;
+                    synchronized (durableMonitor) {
+                        closed = true;
+                        durableMonitor.notifyAll();
+                    }
+                    return;
+                }
+                markDurable(target);
+            }
+        }
+    }
+
+    private void markDurable(long seq) {
+        synchronized (durableMonitor) {
+            if (seq > durableSeq) {
+                durableSeq = seq;
+            }
+            durableMonitor.notifyAll();
+        }
+    }
+
+    // Called with appendLock held
+    private void roll() {
+        Path previous = segmentPath;
+        try {
+            segment.force();
+            channel.close();
+            openSegment(lastSeq + 1);
+            for (LoggedStock stock : compactionSource.get()) {
+                if (segment.remaining() < RECORD_BYTES) {
+                    throw new IllegalStateException("Stock WAL segment too small to hold compacted state");
+                }
+                write(stock.itemId(), stock.version(), 0, stock.quantity());
+            }
+            segment.force();
+            Files.deleteIfExists(previous);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll stock WAL segment", e);
+        }
+        markDurable(lastSeq);
+        logger.info("Rolled stock WAL to {}", segmentPath.getFileName());
+    }
+
+    // Called with appendLock held
+    private long write(long itemId, long version, int delta, int quantityAfter) {
+        long seq = ++lastSeq;
+        putLong(payload, 0, seq);
+        putLong(payload, 8, itemId);
+        putLong(payload, 16, version);
+        putInt(payload, 24, delta);
+        putInt(payload, 28, quantityAfter);
+        putLong(payload, 32, System.currentTimeMillis());
+        crc.reset();
+        crc.update(payload, 0, PAYLOAD_BYTES);
+
+        segment.putInt(PAYLOAD_BYTES);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+        return seq;
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        segmentPath = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Map<Long, LoggedStock> replay(List<Path> segments) throws IOException {
+        Map<Long, LoggedStock> latest = new HashMap<>();
+        byte[] buffer = new byte[PAYLOAD_BYTES];
+        for (Path path : segments) {
+            int records = 0;
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                while (data.remaining() >= RECORD_BYTES) {
+                    int length = data.getInt();
+                    int checksum = data.getInt();
+                    if (length != PAYLOAD_BYTES) {
+                        break; // zero-filled tail of the segment
+                    }
+                    data.get(buffer);
+                    crc.reset();
+                    crc.update(buffer, 0, PAYLOAD_BYTES);
+                    if ((int) crc.getValue() != checksum) {
+                        logger.warn("⚠️ Stock WAL record with bad checksum in {}, ignoring rest of segment", path.getFileName());
+                        break;
+                    }
+                    long seq = getLong(buffer, 0);
+                    long itemId = getLong(buffer, 8);
+                    long version = getLong(buffer, 16);
+                    int quantity = getInt(buffer, 28);
+                    lastSeq = Math.max(lastSeq, seq);
+                    LoggedStock current = latest.get(itemId);
+                    if (current == null || version >= current.version()) {
+                        latest.put(itemId, new LoggedStock(itemId, version, quantity));
+                    }
+                    records++;
+                }
+            }
+            logger.info("Replayed {} records from {}", records, path.getFileName());
+        }
+        return latest;
+    }
+
+    private static void putLong(byte[] b, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            b[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        for (int i = 3; i >= 0; i--) {
+            b[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] b, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (b[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (b[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,21 @@
+-- Schema matching the JPA entities; used by the persistent profile (ddl-auto: validate)
+
+CREATE SEQUENCE IF NOT EXISTS item_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS item (
+    id BIGINT NOT NULL PRIMARY KEY,
+    name VARCHAR(255),
+    category VARCHAR(255),
+    price DOUBLE PRECISION NOT NULL,
+    quantity INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id VARCHAR(36) NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_expires_at ON stock_reservations (expires_at);
@@ -0,0 +1,4 @@
+-- findByCategory and the name lookups used by findByName / bulk import
+CREATE INDEX IF NOT EXISTS idx_item_category ON item (category);
+CREATE INDEX IF NOT EXISTS idx_item_name ON item (name);
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_item_id ON stock_reservations (item_id);
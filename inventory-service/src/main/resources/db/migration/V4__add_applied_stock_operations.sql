@@ -0,0 +1,7 @@
+-- Stock changes applied under an Idempotency-Key; a retried call finds its key and is not applied again
+CREATE TABLE IF NOT EXISTS applied_stock_operations (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    applied_at TIMESTAMP NOT NULL
+);
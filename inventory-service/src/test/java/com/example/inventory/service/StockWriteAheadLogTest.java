@@ -0,0 +1,166 @@
+package com.example.inventory.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockWriteAheadLogTest {
+
+    private static final int RECORD_BYTES = 48;
+
+    @TempDir
+    Path dir;
+
+    private final List<StockWriteAheadLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() throws IOException {
+        for (StockWriteAheadLog wal : opened) {
+            wal.close();
+        }
+    }
+
+    @Test
+    void replayKeepsHighestVersionPerItemRegardlessOfOrder() throws IOException {
+        StockWriteAheadLog wal = open(1 << 16);
+        wal.append(1L, 1, -1, 9);
+        wal.append(1L, 3, -1, 7);
+        wal.append(1L, 2, -1, 8);
+        long last = wal.append(2L, 1, 5, 5);
+        wal.awaitDurable(last);
+        wal.close();
+
+        StockWriteAheadLog reopened = open(1 << 16);
+        Map<Long, StockWriteAheadLog.LoggedStock> recovered = reopened.getRecoveredState();
+
+        assertThat(recovered).containsOnlyKeys(1L, 2L);
+        assertThat(recovered.get(1L)).isEqualTo(new StockWriteAheadLog.LoggedStock(1L, 3, 7));
+        assertThat(recovered.get(2L)).isEqualTo(new StockWriteAheadLog.LoggedStock(2L, 1, 5));
+        // sequence numbers continue after the replayed and re-logged records
+        assertThat(reopened.append(3L, 1, 1, 1)).isGreaterThan(last);
+    }
+
+    @Test
+    void reopenedLogRecoversTheSameStateAgain() throws IOException {
+        StockWriteAheadLog wal = open(1 << 16);
+        wal.awaitDurable(wal.append(1L, 4, -2, 6));
+        wal.close();
+        open(1 << 16).close();
+
+        // the second open rewrote the recovered state into a fresh segment and deleted the old one
+        assertThat(segments()).hasSize(1);
+        assertThat(open(1 << 16).getRecoveredState().get(1L))
+                .isEqualTo(new StockWriteAheadLog.LoggedStock(1L, 4, 6));
+    }
+
+    @Test
+    void tornRecordAtTheTailIsIgnored() throws IOException {
+        StockWriteAheadLog wal = open(1 << 16);
+        wal.append(1L, 1, -1, 9);
+        wal.awaitDurable(wal.append(2L, 1, -1, 4));
+        wal.close();
+
+        // a crash mid-write: header and half a payload, no valid checksum
+        ByteBuffer torn = ByteBuffer.allocate(8 + 20);
+        torn.putInt(40).putInt(0x5eed5eed);
+        for (int i = 0; i < 20; i++) {
+            torn.put((byte) 0x7f);
+        }
+        torn.flip();
+        writeAt(onlySegment(), 2L * RECORD_BYTES, torn);
+
+        Map<Long, StockWriteAheadLog.LoggedStock> recovered = open(1 << 16).getRecoveredState();
+
+        assertThat(recovered).containsOnlyKeys(1L, 2L);
+        assertThat(recovered.get(2L).quantity()).isEqualTo(4);
+    }
+
+    @Test
+    void recordWithBadChecksumEndsReplayOfItsSegment() throws IOException {
+        StockWriteAheadLog wal = open(1 << 16);
+        wal.append(1L, 1, -1, 9);
+        wal.append(2L, 1, -1, 4);
+        wal.awaitDurable(wal.append(3L, 1, -1, 2));
+        wal.close();
+
+        // flip one byte of the second record's item id
+        Path segment = onlySegment();
+        long position = RECORD_BYTES + 8 + 15;
+        ByteBuffer original = ByteBuffer.allocate(1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.read(original, position);
+        }
+        writeAt(segment, position, ByteBuffer.wrap(new byte[] {(byte) (original.get(0) ^ 0x01)}));
+
+        Map<Long, StockWriteAheadLog.LoggedStock> recovered = open(1 << 16).getRecoveredState();
+
+        assertThat(recovered).containsOnlyKeys(1L);
+        assertThat(recovered.get(1L)).isEqualTo(new StockWriteAheadLog.LoggedStock(1L, 1, 9));
+    }
+
+    @Test
+    void rollWritesLiveStateIntoTheNewSegment() throws IOException {
+        Map<Long, StockWriteAheadLog.LoggedStock> live = new ConcurrentHashMap<>();
+        StockWriteAheadLog wal = open(RECORD_BYTES * 4);
+        wal.setCompactionSource(live::values);
+        long seq = 0;
+        for (int version = 1; version <= 6; version++) {
+            long itemId = version % 2 + 1;
+            int quantity = 100 - version;
+            seq = wal.append(itemId, version, -1, quantity);
+            live.put(itemId, new StockWriteAheadLog.LoggedStock(itemId, version, quantity));
+        }
+        wal.awaitDurable(seq);
+        wal.close();
+
+        assertThat(segments()).hasSize(1);
+        Map<Long, StockWriteAheadLog.LoggedStock> recovered = open(RECORD_BYTES * 4).getRecoveredState();
+        assertThat(recovered).isEqualTo(Map.of(
+                1L, new StockWriteAheadLog.LoggedStock(1L, 6, 94),
+                2L, new StockWriteAheadLog.LoggedStock(2L, 5, 95)));
+    }
+
+    private StockWriteAheadLog open(int segmentBytes) throws IOException {
+        StockWriteAheadLog wal = new StockWriteAheadLog();
+        ReflectionTestUtils.setField(wal, "engineEnabled", true);
+        ReflectionTestUtils.setField(wal, "walEnabled", true);
+        ReflectionTestUtils.setField(wal, "directory", dir.toString());
+        ReflectionTestUtils.setField(wal, "segmentBytes", segmentBytes);
+        wal.open();
+        opened.add(wal);
+        return wal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("stock-wal-")).toList();
+        }
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private void writeAt(Path segment, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.product.controller;
 
 import com.example.product.model.Product;
+import com.example.product.service.LowStockAlertFeed;
 import com.example.product.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,10 +23,33 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private LowStockAlertFeed lowStockAlertFeed;
+
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllActiveProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<?>> getAllProducts(@RequestParam(required = false) Integer page,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @RequestParam(required = false) Long afterId,
+                                                  @RequestParam(required = false) String fields) {
+        boolean paged = page != null || size != null || afterId != null;
+        List<Product> products = paged
+                ? productService.getActiveProductsPage(page, size, afterId)
+                : productService.getAllActiveProducts();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (paged && !products.isEmpty()) {
+            // Cursor for the next keyset page
+            response.header("X-Next-After-Id", String.valueOf(products.get(products.size() - 1).getId()));
+        }
+
+        if (fields == null || fields.isBlank()) {
+            return response.body(products);
+        }
+        try {
+            return response.body(productService.projectFields(products, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -45,12 +72,25 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/price-range")
+    public ResponseEntity<List<Product>> getProductsByPriceRange(@RequestParam(required = false) String category,
+                                                                 @RequestParam(required = false) BigDecimal minPrice,
+                                                                 @RequestParam(required = false) BigDecimal maxPrice) {
+        List<Product> products = productService.getProductsByPriceRange(category, minPrice, maxPrice);
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getAllCategories() {
         List<String> categories = productService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
+    @GetMapping("/categories/dictionary")
+    public ResponseEntity<Map<Integer, String>> getCategoryDictionary() {
+        return ResponseEntity.ok(productService.getCategoryDictionary());
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
         List<Product> products = productService.searchProductsByName(name);
@@ -63,6 +103,12 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    // Server-Sent Events: products below the alert threshold on connect, then each threshold crossing
+    @GetMapping(value = "/low-stock/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts() {
+        return lowStockAlertFeed.subscribe();
+    }
+
     @PostMapping
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
         try {
@@ -73,6 +119,15 @@ public class ProductController {
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> createProducts(@RequestBody List<Product> products) {
+        try {
+            return ResponseEntity.ok(productService.createProducts(products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
         try {
@@ -107,9 +162,10 @@ public class ProductController {
     }
 
     @PutMapping("/{id}/increase-stock")
-    public ResponseEntity<Product> increaseStock(@PathVariable Long id, @RequestParam Integer quantity) {
+    public ResponseEntity<Product> increaseStock(@PathVariable Long id, @RequestParam Integer quantity,
+                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Product updatedProduct = productService.increaseStock(id, quantity);
+            Product updatedProduct = productService.increaseStock(id, quantity, idempotencyKey);
             return ResponseEntity.ok(updatedProduct);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
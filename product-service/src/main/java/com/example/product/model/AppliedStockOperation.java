@@ -0,0 +1,65 @@
+package com.example.product.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a stock change applied under an {@code Idempotency-Key}, written in the
+ * same transaction as the change, so a retried call (e.g. a saga compensation resent
+ * after a timeout) is applied only once. Rows are only ever inserted.
+ */
+@Entity
+@Table(name = "applied_stock_operations")
+public class AppliedStockOperation implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+
+    public AppliedStockOperation() {
+    }
+
+    public AppliedStockOperation(String idempotencyKey, Long productId, int quantity) {
+        this.idempotencyKey = idempotencyKey;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.appliedAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+}
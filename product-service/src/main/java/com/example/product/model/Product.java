@@ -1,16 +1,27 @@
 package com.example.product.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_is_active", columnList = "is_active"),
+    @Index(name = "idx_products_category_active", columnList = "category, is_active"),
+    @Index(name = "idx_products_category_id_active", columnList = "category_id, is_active"),
+    @Index(name = "idx_products_stock_quantity", columnList = "stock_quantity")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(ProductChangeListener.class)
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -19,6 +30,10 @@ public class Product {
     @Column(nullable = false)
     private String category;
 
+    // Dictionary id of the category (see CategoryDictionary); category keeps the text for the API
+    @Column(name = "category_id")
+    private Integer categoryId;
+
     private String description;
 
     @Column(nullable = false, precision = 10, scale = 2)
@@ -39,6 +54,10 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped on every update; lets the change listeners put out-of-order events back in order
+    @Version
+    private Long version;
+
     // Default constructor
     public Product() {}
 
@@ -154,6 +173,14 @@ public class Product {
         this.category = category;
     }
 
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -210,6 +237,14 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,46 @@
+package com.example.product.model;
+
+import com.example.product.service.ProductChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns every product insert, update and delete into a {@link ProductChangedEvent}, so
+ * the in-memory indexes do not depend on each service method remembering to report it.
+ */
+@Component
+public class ProductChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(copyOf(product), Boolean.TRUE.equals(product.getIsActive())));
+    }
+
+    @PostRemove
+    public void onRemoved(Product product) {
+        Product removed = copyOf(product);
+        // a delete does not bump the version but must still outrank the last update
+        removed.setVersion(product.getVersion() == null ? null : product.getVersion() + 1);
+        eventPublisher.publishEvent(new ProductChangedEvent(removed, false));
+    }
+
+    // Listeners keep the product after the transaction, so they must not hold the managed entity
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.getId(), product.getName(), product.getCategory(), product.getDescription(),
+                product.getPrice(), product.getStockQuantity(), product.getSku(), product.getIsActive(),
+                product.getCreatedAt(), product.getUpdatedAt());
+        copy.setCategoryId(product.getCategoryId());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+}
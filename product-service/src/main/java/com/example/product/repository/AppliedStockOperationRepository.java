@@ -0,0 +1,9 @@
+package com.example.product.repository;
+
+import com.example.product.model.AppliedStockOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AppliedStockOperationRepository extends JpaRepository<AppliedStockOperation, String> {
+}
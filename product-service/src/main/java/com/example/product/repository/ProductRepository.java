@@ -1,29 +1,59 @@
 package com.example.product.repository;
 
 import com.example.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByIsActiveTrue();
     
-    List<Product> findByCategoryAndIsActiveTrue(String category);
+    Page<Product> findByIsActiveTrue(Pageable pageable);
+    
+    // Keyset pagination: next page of active products after the given cursor id
+    List<Product> findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
     
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Product> findByCategoryIdAndIsActiveTrue(Integer categoryId);
+    
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Product> findBySkuAndIsActiveTrue(String sku);
     
     Optional<Product> findByNameAndIsActiveTrue(String name);
     
-    @Query("SELECT DISTINCT p.category FROM Product p WHERE p.isActive = true")
-    List<String> findDistinctCategories();
+    @Query("SELECT DISTINCT p.categoryId FROM Product p WHERE p.isActive = true AND p.categoryId IS NOT NULL")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Integer> findDistinctCategoryIds();
     
     List<Product> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
     
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.stockQuantity < :threshold")
     List<Product> findLowStockProducts(int threshold);
+    
+    @Query("SELECT SUM(p.price * p.stockQuantity) FROM Product p WHERE p.isActive = true")
+    BigDecimal sumActiveInventoryValue();
+    
+    // Bulk create: which of these names/SKUs are taken (inactive products included, the columns are unique)
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    List<String> findExistingNames(Collection<String> names);
+    
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(Collection<String> skus);
+    
+    // Taken SKUs that a generated SKU or its numbered variants could collide with; '!' escapes LIKE wildcards
+    @Query("SELECT p.sku FROM Product p WHERE p.sku LIKE :pattern ESCAPE '!'")
+    List<String> findSkusLike(String pattern);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.product.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product's stock crossing the alert threshold: {@code LOW} when it drops below,
+ * {@code RECOVERED} when it is restocked to the threshold or above. {@code sequence}
+ * numbers alerts in the order the index raised them.
+ */
+public record LowStockAlert(long sequence, Long productId, String productName, Integer previousStock, int stock,
+                            int threshold, Type type, LocalDateTime at) {
+
+    public enum Type {
+        LOW, RECOVERED
+    }
+}
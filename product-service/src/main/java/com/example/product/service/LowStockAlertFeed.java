@@ -0,0 +1,61 @@
+package com.example.product.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Events feed of low-stock alerts. Subscribers get the products currently
+ * below the alert threshold on connect and then one event per threshold crossing.
+ * The emitter is registered before the snapshot is taken, so no alert falls in between;
+ * clients skip alerts whose sequence is not above the snapshot's.
+ */
+@Service
+public class LowStockAlertFeed {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final LowStockIndex lowStockIndex;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public LowStockAlertFeed(LowStockIndex lowStockIndex) {
+        this.lowStockIndex = lowStockIndex;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        emitters.add(emitter);
+        try {
+            LowStockIndex.AlertingSnapshot snapshot = lowStockIndex.getAlertingSnapshot();
+            emitter.send(SseEmitter.event()
+                    .name("snapshot")
+                    .data(Map.of(
+                            "sequence", snapshot.sequence(),
+                            "products", snapshot.products())));
+        } catch (IOException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onLowStockAlert(LowStockAlert alert) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("alert").data(alert));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
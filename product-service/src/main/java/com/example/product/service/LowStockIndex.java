@@ -0,0 +1,207 @@
+package com.example.product.service;
+
+import com.example.product.model.Product;
+import com.example.product.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Active products ordered by (stock, id) in a skip list, kept current from
+ * {@link ProductChangedEvent}s after each commit. "Below threshold" is a head
+ * set of the skip list, O(log n + k) for any threshold, instead of a table scan.
+ * When a product crosses the alert threshold a {@link LowStockAlert} is published
+ * on a separate thread, so alert listeners never hold up the committing request.
+ * <p>
+ * After-commit events can arrive out of order; each product remembers the entity
+ * version it was last updated from and older events are ignored.
+ */
+@Service
+public class LowStockIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockIndex.class);
+
+    private record StockKey(int stock, long productId) implements Comparable<StockKey> {
+        @Override
+        public int compareTo(StockKey other) {
+            int byStock = Integer.compare(stock, other.stock);
+            return byStock != 0 ? byStock : Long.compare(productId, other.productId);
+        }
+    }
+
+    /**
+     * Products below the alert threshold, with the sequence of the last alert they reflect.
+     */
+    public record AlertingSnapshot(long sequence, List<Map<String, Object>> products) {
+    }
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NavigableSet<StockKey> byStock = new ConcurrentSkipListSet<>();
+    private final Map<Long, StockKey> keys = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    // entity version each product was last updated from; guarded by this
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final ExecutorService alertPublisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-alerts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long alertSequence;
+    private volatile boolean ready;
+
+    @Value("${product.low-stock.alert-threshold:5}")
+    private int alertThreshold;
+
+    public LowStockIndex(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getAlertThreshold() {
+        return alertThreshold;
+    }
+
+    /**
+     * Loads every active product. Products changed by an event while the table was being
+     * read keep the state from that event, which is at least as new as the row read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Long> versionsBefore;
+        synchronized (this) {
+            versionsBefore = new HashMap<>(versions);
+        }
+        List<Product> products = productRepository.findByIsActiveTrue();
+        synchronized (this) {
+            Set<Long> changedMeanwhile = new HashSet<>();
+            versions.forEach((productId, version) -> {
+                if (!version.equals(versionsBefore.get(productId))) {
+                    changedMeanwhile.add(productId);
+                }
+            });
+            byStock.removeIf(key -> !changedMeanwhile.contains(key.productId()));
+            keys.keySet().retainAll(changedMeanwhile);
+            names.keySet().retainAll(changedMeanwhile);
+            for (Product product : products) {
+                if (changedMeanwhile.contains(product.getId())) {
+                    continue;
+                }
+                int stock = product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+                StockKey key = new StockKey(stock, product.getId());
+                byStock.add(key);
+                keys.put(product.getId(), key);
+                names.put(product.getId(), product.getName());
+                if (product.getVersion() != null) {
+                    versions.merge(product.getId(), product.getVersion(), Math::max);
+                }
+            }
+        }
+        ready = true;
+        logger.info("Low-stock index built with {} active products", keys.size());
+    }
+
+    // After commit, so rolled back writes never reach the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Long applied = versions.get(event.productId());
+        if (applied != null && applied >= event.version()) {
+            return;
+        }
+        versions.put(event.productId(), event.version());
+
+        StockKey previous = keys.remove(event.productId());
+        if (previous != null) {
+            byStock.remove(previous);
+        }
+        if (!event.active()) {
+            names.remove(event.productId());
+            return;
+        }
+        StockKey key = new StockKey(event.stock(), event.productId());
+        byStock.add(key);
+        keys.put(event.productId(), key);
+        names.put(event.productId(), event.name());
+        LowStockAlert alert = crossing(previous == null ? null : previous.stock(), event);
+        if (alert != null) {
+            // queued under the lock, so alerts leave in sequence order
+            alertPublisher.execute(() -> {
+                logger.info("📦 Low-stock {} for product {} ({} -> {})",
+                        alert.type(), alert.productName(), alert.previousStock(), alert.stock());
+                eventPublisher.publishEvent(alert);
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        alertPublisher.shutdown();
+    }
+
+    /**
+     * Ids of active products with stock strictly below {@code threshold}, lowest stock first.
+     */
+    public List<Long> findIdsBelow(int threshold) {
+        List<Long> ids = new ArrayList<>();
+        for (StockKey key : byStock.headSet(new StockKey(threshold, Long.MIN_VALUE), false)) {
+            ids.add(key.productId());
+        }
+        return ids;
+    }
+
+    /**
+     * Current (id, name, stock) of every product below the alert threshold.
+     */
+    public List<Map<String, Object>> getAlertingProducts() {
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (StockKey key : byStock.headSet(new StockKey(alertThreshold, Long.MIN_VALUE), false)) {
+            products.add(Map.of(
+                    "productId", key.productId(),
+                    "productName", names.getOrDefault(key.productId(), ""),
+                    "stock", key.stock()));
+        }
+        return products;
+    }
+
+    /**
+     * {@link #getAlertingProducts()} together with the sequence of the last alert it includes;
+     * alerts with a sequence up to that are already reflected in the list.
+     */
+    public synchronized AlertingSnapshot getAlertingSnapshot() {
+        return new AlertingSnapshot(alertSequence, getAlertingProducts());
+    }
+
+    // Called with the lock held
+    private LowStockAlert crossing(Integer previousStock, ProductChangedEvent event) {
+        boolean wasLow = previousStock != null && previousStock < alertThreshold;
+        boolean isLow = event.stock() < alertThreshold;
+        if (isLow == wasLow) {
+            return null;
+        }
+        return new LowStockAlert(++alertSequence, event.productId(), event.name(), previousStock, event.stock(),
+                alertThreshold, isLow ? LowStockAlert.Type.LOW : LowStockAlert.Type.RECOVERED, LocalDateTime.now());
+    }
+}
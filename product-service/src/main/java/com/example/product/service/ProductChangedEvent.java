@@ -0,0 +1,30 @@
+package com.example.product.service;
+
+import com.example.product.model.Product;
+
+/**
+ * Published by {@link com.example.product.model.ProductChangeListener} whenever a product
+ * row is written or removed. {@code product} is a detached copy of the row as written;
+ * {@code active} is false for deactivated or deleted products.
+ * <p>
+ * After-commit listeners can run out of order, so they compare {@link #version()} with
+ * the last one they applied for the product and ignore older events.
+ */
+public record ProductChangedEvent(Product product, boolean active) {
+
+    public Long productId() {
+        return product.getId();
+    }
+
+    public String name() {
+        return product.getName();
+    }
+
+    public int stock() {
+        return product.getStockQuantity() == null ? 0 : product.getStockQuantity();
+    }
+
+    public long version() {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+}
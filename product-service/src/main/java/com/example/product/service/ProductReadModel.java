@@ -0,0 +1,229 @@
+package com.example.product.service;
+
+import com.example.product.model.Product;
+import com.example.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory read model of active products for category and price-range reads.
+ * Each category, keyed by its dictionary id, is an immutable slice: products sorted
+ * by price, with a parallel {@code long[]} of prices in paise, so a price range is
+ * two binary searches and no database access. Slices are rebuilt at startup and
+ * replaced one category at a time from {@link ProductChangedEvent}s after commit.
+ * A change that keeps the product's category and price (e.g. a stock update) swaps
+ * the element in place; only a price or category change re-sorts a slice. Events
+ * older than the product version already applied are ignored.
+ * Returned products are shared snapshots and must not be modified.
+ */
+@Service
+public class ProductReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductReadModel.class);
+    // Slice key for products written before they had a category id
+    private static final int UNCATEGORIZED = 0;
+    private static final Comparator<Product> BY_PRICE =
+            Comparator.comparing(Product::getPrice).thenComparing(Product::getId);
+
+    private record CategorySlice(Product[] products, long[] pricePaise) {
+        static CategorySlice of(List<Product> products) {
+            Product[] sorted = products.toArray(new Product[0]);
+            Arrays.sort(sorted, BY_PRICE);
+            long[] prices = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                prices[i] = toPaise(sorted[i].getPrice());
+            }
+            return new CategorySlice(sorted, prices);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final Map<Integer, CategorySlice> slices = new ConcurrentHashMap<>();
+    // productId -> category key, to find the slice a product is leaving
+    private final Map<Long, Integer> categoryKeys = new ConcurrentHashMap<>();
+    // entity version each product was last updated from; guarded by this
+    private final Map<Long, Long> versions = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductReadModel(ProductRepository productRepository, CategoryDictionary categoryDictionary) {
+        this.productRepository = productRepository;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Integer, List<Product>> byCategory = new HashMap<>();
+        categoryKeys.clear();
+        for (Product product : productRepository.findByIsActiveTrue()) {
+            int key = keyOf(product);
+            byCategory.computeIfAbsent(key, k -> new ArrayList<>()).add(product);
+            categoryKeys.put(product.getId(), key);
+            if (product.getVersion() != null) {
+                versions.merge(product.getId(), product.getVersion(), Math::max);
+            }
+        }
+        slices.clear();
+        byCategory.forEach((key, products) -> slices.put(key, CategorySlice.of(products)));
+        ready = true;
+        logger.info("Product read model built: {} products in {} categories", categoryKeys.size(), slices.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Product product = event.product();
+        Long applied = versions.get(product.getId());
+        if (applied != null && applied >= event.version()) {
+            return;
+        }
+        versions.put(product.getId(), event.version());
+
+        Integer previousKey = categoryKeys.get(product.getId());
+        if (event.active() && product.getPrice() != null && previousKey != null
+                && previousKey == keyOf(product) && replaceInPlace(previousKey, product)) {
+            return;
+        }
+        categoryKeys.remove(product.getId());
+        if (previousKey != null) {
+            replaceSlice(previousKey, product.getId(), null);
+        }
+        if (event.active() && product.getPrice() != null) {
+            int key = keyOf(product);
+            replaceSlice(key, product.getId(), product);
+            categoryKeys.put(product.getId(), key);
+        }
+    }
+
+    /**
+     * Ids of the categories that currently have at least one active product.
+     */
+    public Set<Integer> getCategoryIds() {
+        return Set.copyOf(slices.keySet());
+    }
+
+    public List<Product> findByCategory(String category) {
+        CategorySlice slice = sliceOf(category);
+        return slice == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(slice.products()));
+    }
+
+    /**
+     * Active products in {@code category} priced within [minPrice, maxPrice], cheapest first.
+     * A null bound is open.
+     */
+    public List<Product> findByCategoryAndPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        CategorySlice slice = sliceOf(category);
+        List<Product> result = new ArrayList<>();
+        if (slice != null) {
+            addRange(slice, minPrice, maxPrice, result);
+        }
+        return result;
+    }
+
+    /**
+     * Active products of any category priced within [minPrice, maxPrice], cheapest first.
+     */
+    public List<Product> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        List<Product> result = new ArrayList<>();
+        for (CategorySlice slice : slices.values()) {
+            addRange(slice, minPrice, maxPrice, result);
+        }
+        result.sort(BY_PRICE);
+        return result;
+    }
+
+    private static void addRange(CategorySlice slice, BigDecimal minPrice, BigDecimal maxPrice, List<Product> out) {
+        long[] prices = slice.pricePaise();
+        int from = minPrice == null ? 0 : firstIndexAtLeast(prices, toPaise(minPrice));
+        int to = maxPrice == null ? prices.length : firstIndexAtLeast(prices, toPaise(maxPrice) + 1);
+        for (int i = from; i < to; i++) {
+            out.add(slice.products()[i]);
+        }
+    }
+
+    // Lower bound: first index whose price is >= target (prices.length if none)
+    private static int firstIndexAtLeast(long[] prices, long target) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Same category and price: the product keeps its position, so swap it without re-sorting
+    private boolean replaceInPlace(int key, Product product) {
+        CategorySlice current = slices.get(key);
+        if (current == null) {
+            return false;
+        }
+        long[] prices = current.pricePaise();
+        long price = toPaise(product.getPrice());
+        for (int i = firstIndexAtLeast(prices, price); i < prices.length && prices[i] == price; i++) {
+            if (current.products()[i].getId().equals(product.getId())) {
+                Product[] products = current.products().clone();
+                products[i] = product;
+                slices.put(key, new CategorySlice(products, prices));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Copy-on-write: readers keep using the old slice until the new one is published
+    private void replaceSlice(int key, Long removeId, Product add) {
+        CategorySlice current = slices.get(key);
+        List<Product> products = new ArrayList<>(current == null ? 0 : current.products().length + 1);
+        if (current != null) {
+            for (Product existing : current.products()) {
+                if (!existing.getId().equals(removeId)) {
+                    products.add(existing);
+                }
+            }
+        }
+        if (add != null) {
+            products.add(add);
+        }
+        if (products.isEmpty()) {
+            slices.remove(key);
+        } else {
+            slices.put(key, CategorySlice.of(products));
+        }
+    }
+
+    // Lookups never add to the dictionary: an unknown category simply has no slice
+    private CategorySlice sliceOf(String category) {
+        return categoryDictionary.findId(category).map(slices::get).orElse(null);
+    }
+
+    private static int keyOf(Product product) {
+        return product.getCategoryId() == null ? UNCATEGORIZED : product.getCategoryId();
+    }
+
+    private static long toPaise(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
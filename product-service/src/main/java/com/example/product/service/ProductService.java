@@ -1,23 +1,52 @@
 package com.example.product.service;
 
+import com.example.product.model.AppliedStockOperation;
 import com.example.product.model.Product;
+import com.example.product.repository.AppliedStockOperationRepository;
 import com.example.product.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class ProductService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final Set<String> PRODUCT_FIELDS = Set.of(
+        "id", "name", "category", "description", "price", "stockQuantity",
+        "sku", "isActive", "createdAt", "updatedAt");
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private ProductReadModel productReadModel;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private AppliedStockOperationRepository appliedStockOperationRepository;
+
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
@@ -26,6 +55,53 @@ public class ProductService {
         return productRepository.findByIsActiveTrue();
     }
 
+    // One page of active products ordered by id; afterId acts as a keyset cursor
+    public List<Product> getActiveProductsPage(Integer page, Integer size, Long afterId) {
+        int pageSize = size == null ? 100 : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        if (afterId != null) {
+            return productRepository.findByIsActiveTrueAndIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize));
+        }
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        return productRepository.findByIsActiveTrue(PageRequest.of(pageNumber, pageSize, Sort.by("id"))).getContent();
+    }
+
+    // Projects products down to the requested comma-separated fields, e.g. "id,stockQuantity"
+    public List<Map<String, Object>> projectFields(List<Product> products, String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!PRODUCT_FIELDS.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown product field: " + trimmed);
+            }
+            requested.add(trimmed);
+        }
+
+        List<Map<String, Object>> projected = new ArrayList<>(products.size());
+        for (Product product : products) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : requested) {
+                switch (field) {
+                    case "id" -> row.put("id", product.getId());
+                    case "name" -> row.put("name", product.getName());
+                    case "category" -> row.put("category", product.getCategory());
+                    case "description" -> row.put("description", product.getDescription());
+                    case "price" -> row.put("price", product.getPrice());
+                    case "stockQuantity" -> row.put("stockQuantity", product.getStockQuantity());
+                    case "sku" -> row.put("sku", product.getSku());
+                    case "isActive" -> row.put("isActive", product.getIsActive());
+                    case "createdAt" -> row.put("createdAt", product.getCreatedAt());
+                    case "updatedAt" -> row.put("updatedAt", product.getUpdatedAt());
+                    default -> { }
+                }
+            }
+            projected.add(row);
+        }
+        return projected;
+    }
+
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
@@ -39,11 +115,48 @@ public class ProductService {
     }
 
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryAndIsActiveTrue(category);
+        if (productReadModel.isReady()) {
+            return productReadModel.findByCategory(category);
+        }
+        return categoryDictionary.findId(category)
+                .map(productRepository::findByCategoryIdAndIsActiveTrue)
+                .orElseGet(ArrayList::new);
+    }
+
+    /**
+     * Active products priced within [minPrice, maxPrice], optionally limited to one category.
+     */
+    public List<Product> getProductsByPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (!productReadModel.isReady()) {
+            return getAllActiveProducts().stream()
+                    .filter(p -> category == null || category.equalsIgnoreCase(p.getCategory()))
+                    .filter(p -> minPrice == null || p.getPrice().compareTo(minPrice) >= 0)
+                    .filter(p -> maxPrice == null || p.getPrice().compareTo(maxPrice) <= 0)
+                    .toList();
+        }
+        return category == null
+                ? productReadModel.findByPriceRange(minPrice, maxPrice)
+                : productReadModel.findByCategoryAndPriceRange(category, minPrice, maxPrice);
     }
 
+    // Category names come from the in-memory dictionary, only the ids in use from the read model or database
     public List<String> getAllCategories() {
-        return productRepository.findDistinctCategories();
+        Collection<Integer> categoryIds = productReadModel.isReady()
+                ? productReadModel.getCategoryIds()
+                : productRepository.findDistinctCategoryIds();
+        List<String> categories = new ArrayList<>(categoryIds.size());
+        for (Integer categoryId : categoryIds) {
+            String name = categoryDictionary.nameFor(categoryId);
+            if (name != null) {
+                categories.add(name);
+            }
+        }
+        categories.sort(String.CASE_INSENSITIVE_ORDER);
+        return categories;
+    }
+
+    public Map<Integer, String> getCategoryDictionary() {
+        return categoryDictionary.getAll();
     }
 
     public List<Product> searchProductsByName(String name) {
@@ -51,7 +164,26 @@ public class ProductService {
     }
 
     public List<Product> getLowStockProducts(int threshold) {
-        return productRepository.findLowStockProducts(threshold);
+        if (!lowStockIndex.isReady()) {
+            return productRepository.findLowStockProducts(threshold);
+        }
+        List<Long> ids = lowStockIndex.findIdsBelow(threshold);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // findAllById does not keep order; restore the index's lowest-stock-first order
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
     }
 
     public Product createProduct(Product product) {
@@ -61,18 +193,62 @@ public class ProductService {
             throw new RuntimeException("Product with name '" + product.getName() + "' already exists");
         }
 
+        product.setCategoryId(categoryDictionary.idFor(product.getCategory()));
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
         product.setIsActive(true);
 
         // Generate SKU if not provided
         if (product.getSku() == null || product.getSku().isEmpty()) {
-            product.setSku(generateSku(product.getName()));
+            product.setSku(uniqueSku(generateSku(product.getName()), Set.of(), new HashMap<>()));
         }
 
         return productRepository.save(product);
     }
 
+    /**
+     * Creates a batch of products in one transaction, skipping names or SKUs that
+     * already exist. Returns how many were created and skipped.
+     */
+    public Map<String, Object> createProducts(List<Product> products) {
+        Set<String> names = new HashSet<>();
+        Set<String> skus = new HashSet<>();
+        for (Product product : products) {
+            names.add(product.getName());
+            if (product.getSku() != null && !product.getSku().isEmpty()) {
+                skus.add(product.getSku());
+            }
+        }
+        Set<String> takenNames = new HashSet<>(productRepository.findExistingNames(names));
+        Set<String> takenSkus = skus.isEmpty() ? new HashSet<>() : new HashSet<>(productRepository.findExistingSkus(skus));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Set<String>> existingByBase = new HashMap<>();
+        List<Product> toCreate = new ArrayList<>(products.size());
+        for (Product product : products) {
+            boolean hasSku = product.getSku() != null && !product.getSku().isEmpty();
+            // add() also rejects duplicates within the batch itself
+            if ((hasSku && takenSkus.contains(product.getSku())) || !takenNames.add(product.getName())) {
+                continue;
+            }
+            if (!hasSku) {
+                product.setSku(uniqueSku(generateSku(product.getName()), takenSkus, existingByBase));
+            }
+            takenSkus.add(product.getSku());
+            product.setCategoryId(categoryDictionary.idFor(product.getCategory()));
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            product.setIsActive(true);
+            toCreate.add(product);
+        }
+        productRepository.saveAll(toCreate);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("created", toCreate.size());
+        result.put("skipped", products.size() - toCreate.size());
+        return result;
+    }
+
     public Product updateProduct(Product product) {
         Optional<Product> existingProductOpt = productRepository.findById(product.getId());
         if (existingProductOpt.isEmpty()) {
@@ -82,6 +258,7 @@ public class ProductService {
         Product existingProduct = existingProductOpt.get();
         existingProduct.setName(product.getName());
         existingProduct.setCategory(product.getCategory());
+        existingProduct.setCategoryId(categoryDictionary.idFor(product.getCategory()));
         existingProduct.setDescription(product.getDescription());
         existingProduct.setPrice(product.getPrice());
         existingProduct.setStockQuantity(product.getStockQuantity());
@@ -155,6 +332,21 @@ public class ProductService {
         return addStock(id, quantity);
     }
 
+    // Applied at most once per key: the key is stored in the same transaction as the stock
+    // change, so a concurrent duplicate fails on the primary key and rolls back
+    public Product increaseStock(Long id, Integer quantity, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return addStock(id, quantity);
+        }
+        if (appliedStockOperationRepository.existsById(idempotencyKey)) {
+            return getProductById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        }
+        Product product = addStock(id, quantity);
+        appliedStockOperationRepository.save(new AppliedStockOperation(idempotencyKey, id, quantity));
+        return product;
+    }
+
     public List<Product> searchProducts(String query) {
         return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(query);
     }
@@ -176,9 +368,21 @@ public class ProductService {
     }
 
     public BigDecimal getTotalInventoryValue() {
-        return productRepository.findByIsActiveTrue().stream()
-                .map(product -> product.getPrice().multiply(BigDecimal.valueOf(product.getStockQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Summed in the database as exact NUMERIC, one BigDecimal for the result
+        BigDecimal value = productRepository.sumActiveInventoryValue();
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    // Generated SKUs are time based and collide, within a batch and with earlier products,
+    // so suffix the base until it is free both in the table and in {@code taken}
+    private String uniqueSku(String base, Set<String> taken, Map<String, Set<String>> existingByBase) {
+        Set<String> existing = existingByBase.computeIfAbsent(base, b -> new HashSet<>(
+            productRepository.findSkusLike(b.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%")));
+        String sku = base;
+        for (int n = 1; taken.contains(sku) || existing.contains(sku); n++) {
+            sku = base + n;
+        }
+        return sku;
     }
 
     private String generateSku(String productName) {
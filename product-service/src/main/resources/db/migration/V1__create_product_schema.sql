@@ -0,0 +1,18 @@
+-- Schema matching the JPA entities; used by the persistent profile (ddl-auto: validate)
+
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price NUMERIC(10, 2) NOT NULL,
+    stock_quantity INTEGER NOT NULL,
+    sku VARCHAR(20),
+    is_active BOOLEAN,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_products_name UNIQUE (name),
+    CONSTRAINT uk_products_sku UNIQUE (sku)
+);
@@ -0,0 +1,5 @@
+-- Nearly every read filters on is_active, usually together with category
+-- (sku and name are already indexed by their unique constraints)
+CREATE INDEX IF NOT EXISTS idx_products_is_active ON products (is_active);
+CREATE INDEX IF NOT EXISTS idx_products_category_active ON products (category, is_active);
+CREATE INDEX IF NOT EXISTS idx_products_stock_quantity ON products (stock_quantity);
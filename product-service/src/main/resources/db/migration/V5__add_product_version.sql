@@ -0,0 +1,2 @@
+-- Optimistic-lock version for products; also orders the change events the in-memory indexes apply
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;